@@ -1,11 +1,20 @@
 package com.dev.parking;
 
+import com.dev.parking.cli.TicketBulkCommand;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@EnableScheduling
 public class ParkingApplication {
     public static void main(String[] args) {
-        SpringApplication.run(ParkingApplication.class, args);
+        ConfigurableApplicationContext context = SpringApplication.run(ParkingApplication.class, args);
+        if (context.getBean(TicketBulkCommand.class).ran()) {
+            System.exit(SpringApplication.exit(context));
+        }
     }
 }
@@ -0,0 +1,94 @@
+package com.dev.parking.cli;
+
+import com.dev.parking.repository.TicketSpecifications;
+import com.dev.parking.service.HistoryQuery;
+import com.dev.parking.service.TicketHistoryService;
+import com.dev.parking.service.TicketImporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Command-line export/import, for moving history between sites without the HTTP API:
+ *
+ * <pre>
+ * java -jar parking-backend-exec.jar --spring.main.web-application-type=none --export=tickets.csv
+ * java -jar parking-backend-exec.jar --spring.main.web-application-type=none --import=tickets.csv
+ * </pre>
+ *
+ * The application exits once the command is done (see {@link com.dev.parking.ParkingApplication}),
+ * with status 1 if it failed. Without either option this does nothing.
+ */
+@Component
+public class TicketBulkCommand implements ApplicationRunner, ExitCodeGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketBulkCommand.class);
+
+    private final TicketHistoryService history;
+    private final TicketImporter importer;
+
+    private volatile boolean ran;
+    private volatile int exitCode;
+
+    public TicketBulkCommand(TicketHistoryService history, TicketImporter importer) {
+        this.history = history;
+        this.importer = importer;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        String export = single(args, "export");
+        String importFrom = single(args, "import");
+        if (export == null && importFrom == null) return;
+
+        ran = true;
+        try {
+            if (export != null) {
+                long start = System.nanoTime();
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Path.of(export)))) {
+                    history.writeCsv(HistoryQuery.of(null, null, null, null, null),
+                            TicketSpecifications.hasStatus(null), Sort.by("id"), out);
+                }
+                log.info("Exported tickets to {} in {} ms", export, (System.nanoTime() - start) / 1_000_000);
+            }
+            if (importFrom != null) {
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(Path.of(importFrom)))) {
+                    TicketImporter.Result result = importer.importCsv(in);
+                    log.info("Imported {} ticket(s) from {} ({} skipped) in {} s, {} rows/s", result.imported(),
+                            importFrom, result.skipped(), result.seconds(), result.rowsPerSecond());
+                }
+            }
+        } catch (RuntimeException | IOException e) {
+            log.error("Bulk command failed", e);
+            exitCode = 1;
+        }
+    }
+
+    /** Whether a command ran, so the application should exit instead of serving. */
+    public boolean ran() {
+        return ran;
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    private static String single(ApplicationArguments args, String name) {
+        List<String> values = args.getOptionValues(name);
+        return values == null || values.isEmpty() ? null : values.getFirst();
+    }
+}
@@ -0,0 +1,74 @@
+package com.dev.parking.config;
+
+import com.dev.parking.service.ClusterCoordinator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Measures how far the read replica is behind: writes this node's clock to replica_heartbeat on
+ * the primary and reads back what the replica has applied so far. Each node has its own row, so
+ * the value is always compared with the clock that wrote it.
+ *
+ * <p>Publishes {@code parking.replica.lag} (seconds, -1 when unknown) and
+ * {@code parking.replica.reads{target=replica|primary}} for read-only transactions.
+ */
+@Component
+@ConditionalOnProperty(name = "parking.replica.url")
+public class ReplicaHeartbeat {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaHeartbeat.class);
+
+    private final ReplicaRoutingDataSource routing;
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final String nodeId;
+    private boolean failing;
+
+    public ReplicaHeartbeat(DataSource dataSource, ClusterCoordinator cluster, MeterRegistry meters)
+            throws SQLException {
+        // the DataSource may be wrapped (see SqlStatementMetrics)
+        this.routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+        this.primary = new JdbcTemplate(routing.primary());
+        this.replica = new JdbcTemplate(routing.replica());
+        this.nodeId = cluster.nodeId();
+
+        Gauge.builder("parking.replica.lag", routing, r -> r.replicaLag() < 0 ? -1 : r.replicaLag() / 1000.0)
+                .baseUnit("seconds")
+                .register(meters);
+        FunctionCounter.builder("parking.replica.reads", routing, ReplicaRoutingDataSource::replicaReads)
+                .tag("target", "replica")
+                .register(meters);
+        FunctionCounter.builder("parking.replica.reads", routing, ReplicaRoutingDataSource::primaryReads)
+                .tag("target", "primary")
+                .register(meters);
+    }
+
+    @Scheduled(fixedDelayString = "${parking.replica.heartbeat-interval:250ms}")
+    public void beat() {
+        try {
+            long now = System.currentTimeMillis();
+            primary.update("INSERT INTO replica_heartbeat (node_id, beat) VALUES (?, ?) ON DUPLICATE KEY UPDATE beat = ?",
+                    nodeId, now, now);
+            List<Long> seen = replica.queryForList("SELECT beat FROM replica_heartbeat WHERE node_id = ?", Long.class, nodeId);
+            routing.replicaCaughtUpTo(seen.isEmpty() ? 0 : seen.getFirst());
+            if (failing) log.info("Read replica reachable again");
+            failing = false;
+        } catch (DataAccessException e) {
+            routing.replicaCaughtUpTo(0);
+            if (!failing) log.warn("Read replica heartbeat failed, reading from the primary", e);
+            failing = true;
+        }
+    }
+}
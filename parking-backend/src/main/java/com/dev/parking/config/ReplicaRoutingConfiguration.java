@@ -0,0 +1,50 @@
+package com.dev.parking.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Replaces the auto-configured DataSource with a {@link ReplicaRoutingDataSource} when
+ * {@code parking.replica.url} is set. The primary pool is configured by {@code spring.datasource.*}
+ * as before; the replica pool takes the same {@code spring.datasource.hikari.*} settings,
+ * overridden by {@code parking.replica.hikari.*}, and the primary's credentials unless
+ * {@code parking.replica.username}/{@code password} are given.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "parking.replica.url")
+public class ReplicaRoutingConfiguration {
+
+    @Bean
+    public ReplicaRoutingDataSource dataSource(DataSourceProperties properties, Environment environment,
+                                               @Value("${parking.replica.max-lag:2s}") Duration maxLag) {
+        Binder binder = Binder.get(environment);
+
+        HikariDataSource primary = new HikariDataSource();
+        primary.setDriverClassName(properties.determineDriverClassName());
+        primary.setJdbcUrl(properties.determineUrl());
+        primary.setUsername(properties.determineUsername());
+        primary.setPassword(properties.determinePassword());
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+
+        HikariDataSource replica = new HikariDataSource();
+        replica.setDriverClassName(properties.determineDriverClassName());
+        replica.setJdbcUrl(environment.getRequiredProperty("parking.replica.url"));
+        replica.setUsername(environment.getProperty("parking.replica.username", properties.determineUsername()));
+        replica.setPassword(environment.getProperty("parking.replica.password", properties.determinePassword()));
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+        replica.setPoolName((primary.getPoolName() != null ? primary.getPoolName() : "parking-db") + "-replica");
+        replica.setReadOnly(true);
+        binder.bind("parking.replica.hikari", Bindable.ofInstance(replica));
+
+        return new ReplicaRoutingDataSource(primary, replica, maxLag);
+    }
+}
@@ -0,0 +1,98 @@
+package com.dev.parking.config;
+
+import com.dev.parking.service.ReadConsistency;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The application's DataSource when a read replica is configured ({@code parking.replica.url}):
+ * read-only transactions (History listings and exports) run on the replica while it is caught
+ * up, everything else on the primary.
+ *
+ * <p>Connections are fetched lazily, at a transaction's first statement, so it is known by then
+ * whether the transaction is read-only. The replica counts as caught up when it has applied a
+ * heartbeat of this node (see {@link ReplicaHeartbeat}) that is at most
+ * {@code parking.replica.max-lag} old and newer than what the current reads must see
+ * ({@link ReadConsistency}). Otherwise read-only transactions use the primary too.
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private enum Target { PRIMARY, REPLICA }
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+    private final long maxLagMillis;
+
+    // newest heartbeat of this node seen on the replica, epoch millis; 0 = none or replica unreachable
+    private volatile long replicaAsOf;
+    private final AtomicLong replicaReads = new AtomicLong();
+    private final AtomicLong primaryReads = new AtomicLong();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, HikariDataSource replica, Duration maxLag) {
+        super(primary);
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLagMillis = maxLag.toMillis();
+
+        AbstractRoutingDataSource reads = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                Target target = replicaUsable() ? Target.REPLICA : Target.PRIMARY;
+                (target == Target.REPLICA ? replicaReads : primaryReads).incrementAndGet();
+                return target;
+            }
+        };
+        reads.setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        reads.setLenientFallback(false);
+        reads.afterPropertiesSet();
+        setReadOnlyDataSource(reads);
+    }
+
+    public DataSource primary() {
+        return primary;
+    }
+
+    public DataSource replica() {
+        return replica;
+    }
+
+    void replicaCaughtUpTo(long beat) {
+        replicaAsOf = beat;
+    }
+
+    /**
+     * How far behind the replica is, in millis; -1 if unknown.
+     */
+    public long replicaLag() {
+        long asOf = replicaAsOf;
+        return asOf == 0 ? -1 : Math.max(0, System.currentTimeMillis() - asOf);
+    }
+
+    public long replicaReads() {
+        return replicaReads.get();
+    }
+
+    public long primaryReads() {
+        return primaryReads.get();
+    }
+
+    @Override
+    public void close() {
+        replica.close();
+        primary.close();
+    }
+
+    //helpers
+
+    private boolean replicaUsable() {
+        long asOf = replicaAsOf;
+        return asOf > ReadConsistency.required() && System.currentTimeMillis() - asOf <= maxLagMillis;
+    }
+}
@@ -0,0 +1,165 @@
+package com.dev.parking.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Times every JDBC statement and commit (JPA, JdbcTemplate and Flyway alike) as
+ * {@code parking.sql} tagged by kind, and logs statements slower than
+ * {@code parking.sql.slow-threshold} to {@code com.dev.parking.sql.slow}. Replaces
+ * {@code spring.jpa.show-sql}, which printed every statement on the request thread.
+ *
+ * <p>Slow statements are always counted ({@code parking.sql.slow}); only a
+ * {@code parking.sql.slow-sample-rate} fraction of them is logged, so a database stall does not
+ * turn into a log flood.
+ */
+@Component
+public class SqlStatementMetrics implements BeanPostProcessor {
+
+    private static final Logger slowLog = LoggerFactory.getLogger("com.dev.parking.sql.slow");
+
+    private static final int MAX_LOGGED_SQL = 2000;
+
+    private final ObjectProvider<MeterRegistry> registry;
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private volatile Counter slow;
+
+    public SqlStatementMetrics(ObjectProvider<MeterRegistry> registry,
+                               @Value("${parking.sql.slow-threshold:200ms}") Duration threshold,
+                               @Value("${parking.sql.slow-sample-rate:1.0}") double sampleRate) {
+        this.registry = registry;
+        this.thresholdNanos = threshold.toNanos();
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource ds && !Proxy.isProxyClass(bean.getClass())) {
+            return proxy(DataSource.class, ds, (target, method, args) -> {
+                Object result = invoke(target, method, args);
+                return result instanceof Connection c ? proxy(Connection.class, c, this::onConnection) : result;
+            });
+        }
+        return bean;
+    }
+
+    private Object onConnection(Object target, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.equals("commit")) {
+            long start = System.nanoTime();
+            try {
+                return invoke(target, method, args);
+            } finally {
+                record("commit", null, System.nanoTime() - start);
+            }
+        }
+
+        Object result = invoke(target, method, args);
+        // prepared SQL is only known here, so it travels with the statement proxy
+        String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+        return switch (result) {
+            case CallableStatement cs -> proxy(CallableStatement.class, cs, statementHandler(sql));
+            case PreparedStatement ps -> proxy(PreparedStatement.class, ps, statementHandler(sql));
+            case Statement st -> proxy(Statement.class, st, statementHandler(null));
+            case null, default -> result;
+        };
+    }
+
+    private Handler statementHandler(String preparedSql) {
+        return (target, method, args) -> {
+            String name = method.getName();
+            if (!name.startsWith("execute")) return invoke(target, method, args);
+
+            String sql = preparedSql != null ? preparedSql
+                    : args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+            long start = System.nanoTime();
+            try {
+                return invoke(target, method, args);
+            } finally {
+                record(kind(name), sql, System.nanoTime() - start);
+            }
+        };
+    }
+
+    private void record(String kind, String sql, long nanos) {
+        MeterRegistry meters = registry.getIfAvailable();
+        if (meters != null) {
+            timers.computeIfAbsent(kind, k -> Timer.builder("parking.sql")
+                    .description("JDBC statement and commit time")
+                    .tag("kind", k)
+                    .register(meters)).record(Duration.ofNanos(nanos));
+        }
+        if (nanos < thresholdNanos) return;
+
+        if (meters != null) {
+            if (slow == null) slow = Counter.builder("parking.sql.slow").register(meters);
+            slow.increment();
+        }
+        if (slowLog.isWarnEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            slowLog.warn("Slow {} ({} ms): {}", kind, nanos / 1_000_000, abbreviate(sql));
+        }
+    }
+
+    //helpers
+
+    private static String kind(String executeMethod) {
+        return switch (executeMethod) {
+            case "executeQuery" -> "query";
+            case "executeUpdate", "executeLargeUpdate" -> "update";
+            case "executeBatch", "executeLargeBatch" -> "batch";
+            default -> "execute";
+        };
+    }
+
+    private static String abbreviate(String sql) {
+        if (sql == null) return "(sql not captured)";
+        String s = sql.replaceAll("\\s+", " ").strip();
+        return s.length() <= MAX_LOGGED_SQL ? s : s.substring(0, MAX_LOGGED_SQL) + "…";
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler handler) {
+        InvocationHandler h = (proxy, method, args) -> switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> handler.invoke(target, method, args);
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, h);
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
@@ -0,0 +1,89 @@
+package com.dev.parking.config;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watches JFR {@code jdk.VirtualThreadPinned} events while virtual threads are enabled. A virtual
+ * thread that blocks while pinned (native frames, class init, driver code holding a monitor)
+ * holds its carrier thread, and under load that quietly brings back the platform-thread
+ * ceiling. Pinned stacks that run through the JDBC driver or pool are logged at WARN.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final List<String> JDBC_PACKAGES = List.of("com.mysql.", "com.zaxxer.hikari.", "java.sql.");
+
+    private final Duration threshold;
+    private final AtomicLong pinnedEvents = new AtomicLong();
+    private final AtomicLong jdbcPinnedEvents = new AtomicLong();
+
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(@Value("${parking.vthreads.pinning-threshold:20ms}") Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        stream.startAsync();
+        log.info("Virtual-thread pinning monitor started (threshold {})", threshold);
+    }
+
+    @Override
+    public void stop() {
+        if (stream != null) stream.close();
+        stream = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    public long pinnedEvents() {
+        return pinnedEvents.get();
+    }
+
+    public long jdbcPinnedEvents() {
+        return jdbcPinnedEvents.get();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedEvents.incrementAndGet();
+        if (event.getStackTrace() == null) return;
+
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        boolean inJdbc = frames.stream()
+                .map(f -> f.getMethod().getType().getName())
+                .anyMatch(type -> JDBC_PACKAGES.stream().anyMatch(type::startsWith));
+        if (!inJdbc) {
+            log.debug("Virtual thread pinned for {}", event.getDuration());
+            return;
+        }
+
+        jdbcPinnedEvents.incrementAndGet();
+        StringBuilder top = new StringBuilder();
+        frames.stream().limit(8).forEach(f -> top.append("\n\tat ")
+                .append(f.getMethod().getType().getName()).append('.').append(f.getMethod().getName())
+                .append(':').append(f.getLineNumber()));
+        log.warn("Virtual thread pinned in JDBC path for {}{}", event.getDuration(), top);
+    }
+}
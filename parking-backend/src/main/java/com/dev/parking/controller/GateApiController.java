@@ -0,0 +1,130 @@
+package com.dev.parking.controller;
+
+import com.dev.parking.entity.Ticket;
+import com.dev.parking.entity.VehicleType;
+import com.dev.parking.service.GateAdmission;
+import com.dev.parking.service.GateEventIngestor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Gate entry and exit. Requests go through admission control and the group-committing
+ * {@link GateEventIngestor}; the request thread is released while the event waits for its
+ * batch, and the response is written once the ticket change has committed.
+ */
+@RestController
+@RequestMapping("/api/tickets")
+public class GateApiController {
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private static final String CONCURRENT_CHANGE = "Ticket was changed concurrently, retry";
+
+    private final GateEventIngestor ingestor;
+    private final GateAdmission admission;
+    private final int maxBatch;
+
+    public GateApiController(GateEventIngestor ingestor, GateAdmission admission,
+                             @Value("${parking.gate.max-batch-request:100}") int maxBatch) {
+        this.ingestor = ingestor;
+        this.admission = admission;
+        this.maxBatch = maxBatch;
+    }
+
+    @PostMapping("/entry")
+    public CompletableFuture<Ticket> entry(
+            @RequestBody GateRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey
+    ) {
+        return admission.admit(1, () -> ingestor.submitEntry(request.plate(), vehicleType(request),
+                key(idempotencyKey, request)));
+    }
+
+    @PostMapping("/exit")
+    public CompletableFuture<Ticket> exit(
+            @RequestBody GateRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey
+    ) {
+        return admission.admit(1, () -> ingestor.submitExit(request.plate(), key(idempotencyKey, request)));
+    }
+
+    // several plate reads from one lane controller; every event gets its own result, in request order
+    @PostMapping("/gate")
+    public CompletableFuture<List<GateResult>> batch(@RequestBody List<GateRequest> requests) {
+        if (requests.isEmpty()) return CompletableFuture.completedFuture(List.of());
+        if (requests.size() > maxBatch) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxBatch + " events per request");
+        }
+        for (GateRequest r : requests) {
+            if (r.op() == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Every event needs an op");
+        }
+
+        return admission.admit(requests.size(), () -> {
+            List<CompletableFuture<GateResult>> results = new ArrayList<>(requests.size());
+            for (GateRequest r : requests) {
+                CompletableFuture<Ticket> f = switch (r.op()) {
+                    case ENTRY -> ingestor.submitEntry(r.plate(), vehicleType(r), r.idempotencyKey());
+                    case EXIT -> ingestor.submitExit(r.plate(), r.idempotencyKey());
+                };
+                results.add(f.handle(GateResult::of));
+            }
+            return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                    .thenApply(done -> results.stream().map(CompletableFuture::join).toList());
+        });
+    }
+
+    // a change that lost a race with another instance; the client can simply retry
+    @ExceptionHandler({OptimisticLockingFailureException.class, DataIntegrityViolationException.class})
+    public ProblemDetail conflict(RuntimeException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, CONCURRENT_CHANGE);
+    }
+
+    //helpers
+
+    private static VehicleType vehicleType(GateRequest request) {
+        return request.vehicleType() != null ? request.vehicleType() : VehicleType.CAR;
+    }
+
+    private static String key(String header, GateRequest request) {
+        return header != null ? header : request.idempotencyKey();
+    }
+
+    /**
+     * One plate read. {@code op} is only needed in a batch; {@code vehicleType} defaults to CAR.
+     */
+    public record GateRequest(Op op, String plate, VehicleType vehicleType, String idempotencyKey) {
+
+        public enum Op { ENTRY, EXIT }
+    }
+
+    /**
+     * Outcome of one batched event: the ticket, or the HTTP status and reason it was rejected with.
+     */
+    public record GateResult(int status, Ticket ticket, String error) {
+
+        static GateResult of(Ticket ticket, Throwable failure) {
+            if (failure == null) return new GateResult(HttpStatus.OK.value(), ticket, null);
+
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause() : failure;
+            return switch (cause) {
+                case ErrorResponse e -> new GateResult(e.getStatusCode().value(), null,
+                        e.getBody().getDetail() != null ? e.getBody().getDetail() : cause.getMessage());
+                case OptimisticLockingFailureException e -> new GateResult(HttpStatus.CONFLICT.value(), null, CONCURRENT_CHANGE);
+                case DataIntegrityViolationException e -> new GateResult(HttpStatus.CONFLICT.value(), null, CONCURRENT_CHANGE);
+                default -> new GateResult(HttpStatus.INTERNAL_SERVER_ERROR.value(), null, cause.getMessage());
+            };
+        }
+    }
+}
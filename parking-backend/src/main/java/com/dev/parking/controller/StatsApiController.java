@@ -0,0 +1,79 @@
+package com.dev.parking.controller;
+
+import com.dev.parking.entity.VehicleType;
+import com.dev.parking.service.HistoryQueryCache;
+import com.dev.parking.service.HourlyStats;
+import com.dev.parking.service.HourlyStatsRollup;
+import com.dev.parking.service.OccupancyCounters;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stats")
+public class StatsApiController {
+
+    private static final long MAX_HOURS = 24L * 366;
+
+    private final OccupancyCounters occupancy;
+    private final HourlyStatsRollup rollup;
+    private final HistoryQueryCache historyCache;
+
+    public StatsApiController(OccupancyCounters occupancy, HourlyStatsRollup rollup, HistoryQueryCache historyCache) {
+        this.occupancy = occupancy;
+        this.rollup = rollup;
+        this.historyCache = historyCache;
+    }
+
+    // live occupancy plus today's totals
+    @GetMapping
+    public Summary summary() {
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        List<HourlyStats> hours = rollup.between(today, today.plusDays(1), null);
+
+        return new Summary(
+                occupancy.byVehicleType(),
+                occupancy.total(),
+                hours.stream().mapToLong(HourlyStats::entries).sum(),
+                hours.stream().mapToLong(HourlyStats::exits).sum(),
+                hours.stream().map(HourlyStats::revenue).reduce(BigDecimal.ZERO, BigDecimal::add));
+    }
+
+    // entries/exits/revenue per hour in [from, to); defaults to the last 24 hours
+    @GetMapping("/hourly")
+    public List<HourlyStats> hourly(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) VehicleType vehicleType
+    ) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusHours(1);
+        LocalDateTime start = from != null ? from : end.minusHours(24);
+        if (!start.isBefore(end) || ChronoUnit.HOURS.between(start, end) > MAX_HOURS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must be before to, at most a year apart");
+        }
+        return rollup.between(start, end, vehicleType);
+    }
+
+    // History listing cache effectiveness since startup
+    @GetMapping("/cache")
+    public CacheSummary cache() {
+        CacheStats s = historyCache.stats();
+        return new CacheSummary(historyCache.size(), s.hitCount(), s.missCount(), s.hitRate(), s.evictionCount());
+    }
+
+    public record CacheSummary(long entries, long hits, long misses, double hitRate, long evictions) {
+    }
+
+    public record Summary(Map<VehicleType, Long> occupancy, long occupied,
+                          long entriesToday, long exitsToday, BigDecimal revenueToday) {
+    }
+}
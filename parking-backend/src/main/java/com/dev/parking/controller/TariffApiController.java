@@ -0,0 +1,51 @@
+package com.dev.parking.controller;
+
+import com.dev.parking.entity.VehicleType;
+import com.dev.parking.service.TariffEngine;
+import com.dev.parking.service.TariffRepricer;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/tariff")
+public class TariffApiController {
+
+    private final TariffEngine tariff;
+    private final TariffRepricer repricer;
+
+    public TariffApiController(TariffEngine tariff, TariffRepricer repricer) {
+        this.tariff = tariff;
+        this.repricer = repricer;
+    }
+
+    @GetMapping("/quote")
+    public BigDecimal quote(
+            @RequestParam VehicleType vehicleType,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime entry,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime exit
+    ) {
+        return tariff.price(vehicleType, entry, exit != null ? exit : LocalDateTime.now());
+    }
+
+    // bulk re-pricing of CLOSED tickets by exit time; runs in the background, poll GET for progress
+    @PostMapping("/reprice")
+    public ResponseEntity<TariffRepricer.Status> reprice(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return ResponseEntity.accepted().body(repricer.start(from, to));
+    }
+
+    @GetMapping("/reprice")
+    public TariffRepricer.Status repriceStatus() {
+        TariffRepricer.Status status = repricer.status();
+        if (status == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No re-pricing run yet");
+        return status;
+    }
+}
@@ -3,50 +3,273 @@ package com.dev.parking.controller;
 import com.dev.parking.entity.Ticket;
 import com.dev.parking.entity.TicketStatus;
 import com.dev.parking.entity.VehicleType;
-import com.dev.parking.repository.TicketRepository;
 import com.dev.parking.repository.TicketSpecifications;
+import com.dev.parking.service.HistoryQuery;
+import com.dev.parking.service.HistoryQueryCache;
+import com.dev.parking.service.PlateMatch;
+import com.dev.parking.service.PlateSearchIndex;
+import com.dev.parking.service.ReadConsistency;
+import com.dev.parking.service.RecentTicketChanges;
+import com.dev.parking.service.TicketChanges;
+import com.dev.parking.service.TicketEventBroadcaster;
+import com.dev.parking.service.TicketHistoryService;
+import com.dev.parking.service.TicketImporter;
+import com.dev.parking.service.TicketPage;
+import com.dev.parking.service.TimeWindow;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/tickets")
 public class TicketApiController {
 
-    private final TicketRepository repo;
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    public static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+
+    // sort tag values; anything else is reported as "other" to keep the tag bounded
+    private static final Set<String> SORT_TAGS = Set.of("id", "plate", "vehicleType", "status", "entryTime",
+            "exitTime", "amount");
+
+    private final TicketHistoryService history;
+    private final PlateSearchIndex plateSearch;
+    private final HistoryQueryCache cache;
+    private final RecentTicketChanges recentChanges;
+    private final TicketEventBroadcaster events;
+    private final TicketImporter importer;
+    private final ObjectMapper mapper;
+    private final MeterRegistry meters;
 
-    public TicketApiController(TicketRepository repo) {
-        this.repo = repo;
+    public TicketApiController(TicketHistoryService history, PlateSearchIndex plateSearch,
+                               HistoryQueryCache cache, RecentTicketChanges recentChanges,
+                               TicketEventBroadcaster events, TicketImporter importer,
+                               ObjectMapper mapper, MeterRegistry meters) {
+        this.history = history;
+        this.plateSearch = plateSearch;
+        this.cache = cache;
+        this.recentChanges = recentChanges;
+        this.events = events;
+        this.importer = importer;
+        this.mapper = mapper;
+        this.meters = meters;
     }
 
 
+    // served from the History cache; If-None-Match with the current ETag gets a 304 without a query.
+    // Timed as parking.history.list, tagged by filter shape and cache hit/miss
     @GetMapping
-    public List<Ticket> list(
+    public ResponseEntity<byte[]> list(
+            @RequestParam(required = false) TicketStatus status,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) VehicleType vehicleType,
+            @RequestParam(required = false) String plate,
+            @RequestParam(required = false) PlateMatch plateMatch,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime entryFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime entryTo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime exitFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime exitTo,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        TimeWindow entered = TimeWindow.of(entryFrom, entryTo);
+        TimeWindow exited = TimeWindow.of(exitFrom, exitTo);
+        HistoryQuery query = HistoryQuery.of(status, vehicleType, plate, plateMatch, entered, exited, sort);
+
+        Timer.Sample sample = Timer.start(meters);
+        HistoryQueryCache.Lookup lookup = cache.lookup(query, () -> ReadConsistency.asOf(recentChanges.lastAffecting(query),
+                () -> mapper.writeValueAsBytes(history.list(
+                        query, filter(status, vehicleType, plate, plateMatch, entered, exited), parseSort(sort)))));
+        sample.stop(meters.timer("parking.history.list", shape(query).and("cache", lookup.source().tag())));
+        HistoryQueryCache.Entry entry = lookup.entry();
+
+        if (entry.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entry.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(entry.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(entry.body());
+    }
+
+    // keyset page: pass the previous page's nextCursor back with the same filters and sort
+    @GetMapping("/page")
+    public TicketPage page(
             @RequestParam(required = false) TicketStatus status,
             @RequestParam(required = false) String sort,
             @RequestParam(required = false) VehicleType vehicleType,
-            @RequestParam(required = false) String plate
+            @RequestParam(required = false) String plate,
+            @RequestParam(required = false) PlateMatch plateMatch,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime entryFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime entryTo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime exitFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime exitTo,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
     ) {
+        TimeWindow entered = TimeWindow.of(entryFrom, entryTo);
+        TimeWindow exited = TimeWindow.of(exitFrom, exitTo);
+        HistoryQuery query = HistoryQuery.of(status, vehicleType, plate, plateMatch, entered, exited, sort);
+        return ReadConsistency.asOf(recentChanges.lastAffecting(query), () -> history.page(
+                query, filter(status, vehicleType, plate, plateMatch, entered, exited), parseSort(sort), cursor, size));
+    }
+
+    // tickets changed since the previous call's nextCursor, for clients keeping a local copy
+    @GetMapping("/changes")
+    public TicketChanges changes(
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) Integer size
+    ) {
+        return history.changes(since, size);
+    }
+
+    // newline-delimited JSON, written row by row as the cursor advances
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> stream(
+            @RequestParam(required = false) TicketStatus status,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) VehicleType vehicleType,
+            @RequestParam(required = false) String plate,
+            @RequestParam(required = false) PlateMatch plateMatch,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime entryFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime entryTo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime exitFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime exitTo
+    ) {
+        TimeWindow entered = TimeWindow.of(entryFrom, entryTo);
+        TimeWindow exited = TimeWindow.of(exitFrom, exitTo);
+        Specification<Ticket> spec = filter(status, vehicleType, plate, plateMatch, entered, exited);
         Sort s = parseSort(sort);
+        HistoryQuery query = HistoryQuery.of(status, vehicleType, plate, plateMatch, entered, exited, sort);
+        long asOf = recentChanges.lastAffecting(query);
+
+        StreamingResponseBody body = out -> ReadConsistency.asOf(asOf, () -> history.writeNdjson(query, spec, s, out));
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
 
-        Specification<Ticket> spec = Specification.where(TicketSpecifications.hasStatus(status))
-                .and(TicketSpecifications.hasVehicleType(vehicleType))
-                .and(TicketSpecifications.plateContains(plate));
 
-        return repo.findAll(spec, s);
+    // archived (CLOSED, past parking.archive.horizon) tickets by entry time, as NDJSON; the range
+    // is required so only the archive partitions for those months are read
+    @GetMapping(value = "/archive", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> archive(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime entryFrom,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime entryTo,
+            @RequestParam(required = false) VehicleType vehicleType,
+            @RequestParam(required = false) String plate,
+            @RequestParam(required = false) String sort
+    ) {
+        if (!entryFrom.isBefore(entryTo)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "entryFrom must be before entryTo");
+        }
+        Sort s = parseSort(sort);
+        Sort.Order order = s.stream().findFirst().orElse(Sort.Order.desc("entryTime"));
+        if (!"entryTime".equals(order.getProperty())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The archive is sorted by entryTime only");
+        }
+
+        StreamingResponseBody body = out -> history.writeArchiveNdjson(entryFrom, entryTo, vehicleType, plate,
+                order.isDescending(), out);
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
     }
 
+    // CSV download of the matching history, streamed off a forward-only cursor
+    @GetMapping(value = "/export", produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false) TicketStatus status,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) VehicleType vehicleType,
+            @RequestParam(required = false) String plate,
+            @RequestParam(required = false) PlateMatch plateMatch,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime entryFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime entryTo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime exitFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime exitTo
+    ) {
+        TimeWindow entered = TimeWindow.of(entryFrom, entryTo);
+        TimeWindow exited = TimeWindow.of(exitFrom, exitTo);
+        Specification<Ticket> spec = filter(status, vehicleType, plate, plateMatch, entered, exited);
+        Sort s = sort == null ? Sort.by("id") : parseSort(sort);
+        HistoryQuery query = HistoryQuery.of(status, vehicleType, plate, plateMatch, entered, exited, sort);
+        long asOf = recentChanges.lastAffecting(query);
 
+        StreamingResponseBody body = out -> ReadConsistency.asOf(asOf, () -> history.writeCsv(query, spec, s, out));
+        return ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tickets.csv\"")
+                .body(body);
+    }
+
+    // CSV upload in the export format; rows get new ids here
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public TicketImporter.Result importCsv(InputStream body) {
+        return importer.importCsv(body);
+    }
+
+    // Server-Sent Events: one OPENED/CLOSED event per committed change matching the filters
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(
+            @RequestParam(required = false) TicketStatus status,
+            @RequestParam(required = false) VehicleType vehicleType,
+            @RequestParam(required = false) String plate,
+            @RequestParam(required = false) PlateMatch plateMatch,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime entryFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime entryTo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime exitFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime exitTo
+    ) {
+        return events.subscribe(HistoryQuery.of(status, vehicleType, plate, plateMatch,
+                TimeWindow.of(entryFrom, entryTo), TimeWindow.of(exitFrom, exitTo), null));
+    }
 
     //helpers
 
+    private Specification<Ticket> filter(TicketStatus status, VehicleType vehicleType, String plate,
+                                         PlateMatch plateMatch, TimeWindow entry, TimeWindow exit) {
+        return Specification.where(TicketSpecifications.hasStatus(status))
+                .and(TicketSpecifications.hasVehicleType(vehicleType))
+                .and(plateSearch.matching(plate, plateMatch))
+                .and(TicketSpecifications.entryTimeFrom(entry.from()))
+                .and(TicketSpecifications.entryTimeTo(entry.to()))
+                .and(TicketSpecifications.exitTimeFrom(exit.from()))
+                .and(TicketSpecifications.exitTimeTo(exit.to()));
+    }
+
+    // low-cardinality description of a listing request: which filters are set, not their values
+    private static Tags shape(HistoryQuery q) {
+        String range = q.entry().isAll() ? (q.exit().isAll() ? "none" : "exit") : (q.exit().isAll() ? "entry" : "entry+exit");
+        String sortField = q.sort() == null ? "none" : q.sort().split(",")[0];
+        return Tags.of(
+                "status", q.status() == null ? "any" : q.status().name(),
+                "vehicleType", q.vehicleType() == null ? "any" : q.vehicleType().name(),
+                "plate", q.plateMatch() == null ? "none" : q.plateMatch().name().toLowerCase(Locale.ROOT),
+                "range", range,
+                "sort", SORT_TAGS.contains(sortField) ? sortField : "other");
+    }
+
     private String normalizePlate(String plate) {
         if (plate == null) return null;
         return plate.trim().toUpperCase();
     }
 
-    private Sort parseSort(String sort) {
+    // package-private for parking-benchmarks
+    static Sort parseSort(String sort) {
         if (sort == null || sort.isBlank()) return Sort.unsorted();
 
         String[] parts = sort.split(",");
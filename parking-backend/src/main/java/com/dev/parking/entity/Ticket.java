@@ -1,5 +1,6 @@
 package com.dev.parking.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -8,14 +9,22 @@ import java.time.LocalDateTime;
 @Table(name = "tickets")
 public class Ticket {
 
+    // pooled ids (see hibernate.id.optimizer.pooled.preferred) let Hibernate batch inserts;
+    // IDENTITY would force one round trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ticket_seq")
+    @SequenceGenerator(name = "ticket_seq", sequenceName = "tickets_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
     @Column(name = "plate", nullable = false, length = 20)
     private String plate;
 
+    // UPPER(TRIM(plate)), computed by the database (V2 migration); indexed for plate lookups
+    @JsonIgnore
+    @Column(name = "plate_norm", length = 20, insertable = false, updatable = false)
+    private String plateNorm;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "vehicletype", nullable = false)
     private VehicleType vehicleType;
@@ -34,6 +43,17 @@ public class Ticket {
     @Column(name = "amount")
     private BigDecimal amount;
 
+    // bumped on every update; a concurrent writer to the same ticket gets an optimistic-lock failure
+    @JsonIgnore
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    // set by MySQL on every insert and update (V8 migration); keys the changes feed
+    @JsonIgnore
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    private LocalDateTime updatedAt;
+
 
 
     public Ticket() {
@@ -51,6 +71,10 @@ public class Ticket {
         this.plate = plate;
     }
 
+    public String getPlateNorm() {
+        return plateNorm;
+    }
+
     public VehicleType getVehicleType() {
         return vehicleType;
     }
@@ -91,4 +115,8 @@ public class Ticket {
         this.amount = amount;
     }
 
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
 }
@@ -0,0 +1,14 @@
+package com.dev.parking.repository;
+
+import com.dev.parking.entity.TicketStatus;
+import com.dev.parking.entity.VehicleType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A row of tickets_archive; serializes like {@link com.dev.parking.entity.Ticket}.
+ */
+public record ArchivedTicket(long id, String plate, VehicleType vehicleType, TicketStatus status,
+                             LocalDateTime entryTime, LocalDateTime exitTime, BigDecimal amount) {
+}
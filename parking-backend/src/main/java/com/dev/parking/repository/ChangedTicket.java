@@ -0,0 +1,19 @@
+package com.dev.parking.repository;
+
+import com.dev.parking.entity.TicketStatus;
+import com.dev.parking.entity.VehicleType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A {@link TicketView} with the time its row last changed, for the changes feed.
+ */
+public record ChangedTicket(Long id, String plate, VehicleType vehicleType, TicketStatus status,
+                            LocalDateTime entryTime, LocalDateTime exitTime, BigDecimal amount,
+                            LocalDateTime updatedAt) {
+
+    public TicketView view() {
+        return new TicketView(id, plate, vehicleType, status, entryTime, exitTime, amount);
+    }
+}
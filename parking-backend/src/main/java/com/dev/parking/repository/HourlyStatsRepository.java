@@ -0,0 +1,84 @@
+package com.dev.parking.repository;
+
+import com.dev.parking.entity.VehicleType;
+import com.dev.parking.service.HourlyStats;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * ticket_hourly_stats rollup (V3 migration). Rows are only ever incremented, never recomputed
+ * from tickets.
+ */
+@Repository
+public class HourlyStatsRepository {
+
+    private static final String UPSERT = """
+            INSERT INTO ticket_hourly_stats (bucket_start, vehicletype, entries, exits, revenue)
+            VALUES (?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE entries = entries + VALUES(entries),
+                                    exits   = exits + VALUES(exits),
+                                    revenue = revenue + VALUES(revenue)
+            """;
+
+    private static final RowMapper<HourlyStats> ROW = (rs, i) -> new HourlyStats(
+            rs.getTimestamp("bucket_start").toLocalDateTime(),
+            VehicleType.valueOf(rs.getString("vehicletype")),
+            rs.getLong("entries"),
+            rs.getLong("exits"),
+            rs.getBigDecimal("revenue"));
+
+    private final JdbcTemplate jdbc;
+
+    public HourlyStatsRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public void addAll(Collection<HourlyStats> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        for (HourlyStats d : deltas) {
+            args.add(new Object[]{Timestamp.valueOf(d.bucketStart()), d.vehicleType().name(),
+                    d.entries(), d.exits(), d.revenue()});
+        }
+        jdbc.batchUpdate(UPSERT, args);
+    }
+
+    /**
+     * Recomputes revenue of the hour-aligned buckets in {@code [from, to)} from hot and archived
+     * ticket amounts, e.g. after re-pricing. Only safe for hours that no longer receive live exits.
+     */
+    public int rebuildRevenue(LocalDateTime from, LocalDateTime to) {
+        return jdbc.update("""
+                UPDATE ticket_hourly_stats h
+                    LEFT JOIN (SELECT DATE_FORMAT(exittime, '%Y-%m-%d %H:00:00') AS bucket, vehicletype, SUM(amount) AS revenue
+                               FROM (SELECT vehicletype, exittime, amount FROM tickets
+                                     WHERE status = 'CLOSED' AND exittime >= ? AND exittime < ?
+                                     UNION ALL
+                                     SELECT vehicletype, exittime, amount FROM tickets_archive
+                                     WHERE status = 'CLOSED' AND exittime >= ? AND exittime < ?) t
+                               GROUP BY bucket, vehicletype) x
+                    ON x.bucket = h.bucket_start AND x.vehicletype = h.vehicletype
+                SET h.revenue = COALESCE(x.revenue, 0)
+                WHERE h.bucket_start >= ? AND h.bucket_start < ?
+                """, Timestamp.valueOf(from), Timestamp.valueOf(to), Timestamp.valueOf(from), Timestamp.valueOf(to),
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    /**
+     * Buckets with {@code from <= bucket_start < to}, oldest first; all types when {@code type} is null.
+     */
+    public List<HourlyStats> findBetween(LocalDateTime from, LocalDateTime to, VehicleType type) {
+        if (type == null) {
+            return jdbc.query("SELECT * FROM ticket_hourly_stats WHERE bucket_start >= ? AND bucket_start < ? "
+                    + "ORDER BY bucket_start, vehicletype", ROW, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        }
+        return jdbc.query("SELECT * FROM ticket_hourly_stats WHERE vehicletype = ? AND bucket_start >= ? AND bucket_start < ? "
+                + "ORDER BY bucket_start", ROW, type.name(), Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+}
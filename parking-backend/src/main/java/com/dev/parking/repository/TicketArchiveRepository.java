@@ -0,0 +1,273 @@
+package com.dev.parking.repository;
+
+import com.dev.parking.entity.TicketStatus;
+import com.dev.parking.entity.VehicleType;
+import com.dev.parking.service.HistoryCursor;
+import com.dev.parking.service.HistoryQuery;
+import com.dev.parking.service.PlateMatch;
+import com.dev.parking.service.TimeWindow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.stream.Stream;
+
+/**
+ * tickets_archive (V4 migration): CLOSED tickets moved out of the hot table, range-partitioned
+ * by entry month. History listings read it alongside tickets, with the same filters in SQL.
+ */
+@Repository
+public class TicketArchiveRepository {
+
+    private static final String COLUMNS = "id, plate, vehicletype, status, entrytime, exittime, amount";
+
+    // CLOSED before the cutoff, and with an entry time to partition by
+    private static final String ARCHIVABLE = "status = 'CLOSED' AND exittime < ? AND entrytime IS NOT NULL";
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private static final RowMapper<ArchivedTicket> ROW = (rs, i) -> {
+        Timestamp exit = rs.getTimestamp("exittime");
+        return new ArchivedTicket(
+                rs.getLong("id"),
+                rs.getString("plate"),
+                VehicleType.valueOf(rs.getString("vehicletype")),
+                TicketStatus.valueOf(rs.getString("status")),
+                rs.getTimestamp("entrytime").toLocalDateTime(),
+                exit == null ? null : exit.toLocalDateTime(),
+                rs.getBigDecimal("amount"));
+    };
+
+    private static final RowMapper<TicketView> VIEW = (rs, i) -> {
+        String type = rs.getString("vehicletype");
+        String status = rs.getString("status");
+        Timestamp entry = rs.getTimestamp("entrytime");
+        Timestamp exit = rs.getTimestamp("exittime");
+        return new TicketView(
+                rs.getLong("id"),
+                rs.getString("plate"),
+                type == null ? null : VehicleType.valueOf(type),
+                status == null ? null : TicketStatus.valueOf(status),
+                entry == null ? null : entry.toLocalDateTime(),
+                exit == null ? null : exit.toLocalDateTime(),
+                rs.getBigDecimal("amount"));
+    };
+
+    private final JdbcTemplate jdbc;
+
+    // same meaning as parking.history.stream-fetch-size for the hot table
+    @Value("${parking.history.stream-fetch-size:-2147483648}")
+    private int streamFetchSize;
+
+    public TicketArchiveRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * The next up to {@code limit} archivable tickets after {@code afterId} in id order, or null if none.
+     */
+    public Batch nextBatch(LocalDateTime closedBefore, long afterId, int limit) {
+        return jdbc.queryForObject("""
+                        SELECT MAX(id), MIN(entrytime), MAX(entrytime), COUNT(*)
+                        FROM (SELECT id, entrytime FROM tickets
+                              WHERE id > ? AND %s
+                              ORDER BY id LIMIT ?) b
+                        """.formatted(ARCHIVABLE),
+                (rs, i) -> rs.getLong(4) == 0 ? null : new Batch(rs.getLong(1),
+                        rs.getTimestamp(2).toLocalDateTime(), rs.getTimestamp(3).toLocalDateTime(), rs.getInt(4)),
+                afterId, Timestamp.valueOf(closedBefore), limit);
+    }
+
+    /**
+     * Copies archivable tickets with ids in {@code (afterId, lastId]} to the archive and deletes
+     * them from tickets. Must run in a transaction; returns the number of tickets moved.
+     */
+    public int move(long afterId, long lastId, LocalDateTime closedBefore) {
+        Timestamp cutoff = Timestamp.valueOf(closedBefore);
+        jdbc.update("INSERT INTO tickets_archive (" + COLUMNS + ") SELECT " + COLUMNS + " FROM tickets "
+                + "WHERE id > ? AND id <= ? AND " + ARCHIVABLE, afterId, lastId, cutoff);
+        return jdbc.update("DELETE FROM tickets WHERE id > ? AND id <= ? AND " + ARCHIVABLE, afterId, lastId, cutoff);
+    }
+
+    /**
+     * Latest month that has its own partition, or null if only p_start and p_future exist.
+     */
+    public YearMonth lastPartitionedMonth() {
+        List<String> names = jdbc.queryForList("""
+                SELECT PARTITION_NAME FROM information_schema.PARTITIONS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'tickets_archive'
+                  AND PARTITION_NAME REGEXP '^p[0-9]{6}$'
+                ORDER BY PARTITION_NAME DESC LIMIT 1
+                """, String.class);
+        return names.isEmpty() ? null : YearMonth.parse(names.getFirst(), PARTITION_NAME);
+    }
+
+    /**
+     * Splits one partition per month in {@code [from, to]} off p_future. {@code from} must be after
+     * every existing monthly partition.
+     */
+    public void addMonthlyPartitions(YearMonth from, YearMonth to) {
+        List<String> parts = new ArrayList<>();
+        for (YearMonth m = from; !m.isAfter(to); m = m.plusMonths(1)) {
+            parts.add("PARTITION %s VALUES LESS THAN ('%s')".formatted(m.format(PARTITION_NAME), m.plusMonths(1).atDay(1)));
+        }
+        parts.add("PARTITION p_future VALUES LESS THAN (MAXVALUE)");
+        jdbc.execute("ALTER TABLE tickets_archive REORGANIZE PARTITION p_future INTO (" + String.join(", ", parts) + ")");
+    }
+
+    /**
+     * Archived tickets that entered in {@code [from, to)}, ordered by entry time. The range on the
+     * partitioning column lets MySQL read only the months it covers. Must be closed by the caller.
+     */
+    public Stream<ArchivedTicket> streamByEntryTime(LocalDateTime from, LocalDateTime to, VehicleType type,
+                                                    String plateNorm, boolean descending) {
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM tickets_archive WHERE entrytime >= ? AND entrytime < ?");
+        List<Object> args = new ArrayList<>(List.of(Timestamp.valueOf(from), Timestamp.valueOf(to)));
+        if (type != null) {
+            sql.append(" AND vehicletype = ?");
+            args.add(type.name());
+        }
+        if (plateNorm != null) {
+            sql.append(" AND plate_norm = ?");
+            args.add(plateNorm);
+        }
+        sql.append(descending ? " ORDER BY entrytime DESC, id DESC" : " ORDER BY entrytime, id");
+        return stream(sql.toString(), args, ROW);
+    }
+
+    /**
+     * Up to {@code limit} archived tickets matching {@code filter}, after {@code cursor} if not
+     * null, in {@code sort} order (which must end in id). An entry-time range only reads the
+     * months it covers.
+     */
+    @Transactional(readOnly = true)
+    public List<TicketView> findViews(HistoryQuery filter, HistoryCursor cursor, Sort sort, int limit) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM tickets_archive WHERE ")
+                .append(where(filter, args));
+        if (cursor != null) {
+            Sort.Order order = sort.getOrderFor(cursor.field());
+            sql.append(" AND ").append(after(cursor, order != null && order.isDescending(), args));
+        }
+        sql.append(orderBy(sort)).append(" LIMIT ?");
+        args.add(limit);
+        return jdbc.query(sql.toString(), VIEW, args.toArray());
+    }
+
+    /**
+     * Tickets matching {@code filter} in tickets and tickets_archive, in {@code sort} order, as
+     * one UNION ALL: MySQL allows only one streaming result per connection, so the two tables
+     * cannot be streamed side by side and merged here. Must be closed by the caller.
+     */
+    public Stream<TicketView> streamWithHot(HistoryQuery filter, Sort sort) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT " + COLUMNS + " FROM tickets WHERE " + where(filter, args)
+                + " UNION ALL SELECT " + COLUMNS + " FROM tickets_archive WHERE " + where(filter, args)
+                + orderBy(sort);
+        return stream(sql, args, VIEW);
+    }
+
+    //helpers
+
+    private <T> Stream<T> stream(String sql, List<Object> args, RowMapper<T> mapper) {
+        return jdbc.queryForStream(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(streamFetchSize);
+            for (int i = 0; i < args.size(); i++) ps.setObject(i + 1, args.get(i));
+            return ps;
+        }, mapper);
+    }
+
+    // the History filter on the columns both tables share; plates compare on the stored plate_norm
+    private static String where(HistoryQuery filter, List<Object> args) {
+        StringJoiner terms = new StringJoiner(" AND ").setEmptyValue("TRUE");
+        if (filter.status() != null) {
+            terms.add("status = ?");
+            args.add(filter.status().name());
+        }
+        if (filter.vehicleType() != null) {
+            terms.add("vehicletype = ?");
+            args.add(filter.vehicleType().name());
+        }
+        if (filter.plate() != null) {
+            String escaped = filter.plate().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            switch (filter.plateMatch()) {
+                case EXACT -> args.add(filter.plate());
+                case PREFIX -> args.add(escaped + "%");
+                case CONTAINS -> args.add("%" + escaped + "%");
+            }
+            terms.add(filter.plateMatch() == PlateMatch.EXACT ? "plate_norm = ?" : "plate_norm LIKE ?");
+        }
+        range(terms, args, "entrytime", filter.entry());
+        range(terms, args, "exittime", filter.exit());
+        return terms.toString();
+    }
+
+    private static void range(StringJoiner terms, List<Object> args, String column, TimeWindow window) {
+        if (window.from() != null) {
+            terms.add(column + " >= ?");
+            args.add(Timestamp.valueOf(window.from()));
+        }
+        if (window.to() != null) {
+            terms.add(column + " <= ?");
+            args.add(Timestamp.valueOf(window.to()));
+        }
+    }
+
+    // rows strictly after the cursor in (field, id) order, with NULL lowest, as TicketSpecifications.after
+    private static String after(HistoryCursor cursor, boolean descending, List<Object> args) {
+        String idAfter = descending ? "id < ?" : "id > ?";
+        if ("id".equals(cursor.field())) {
+            args.add(cursor.id());
+            return idAfter;
+        }
+
+        String column = column(cursor.field());
+        Object value = "plate".equals(cursor.field()) ? cursor.value()
+                : cursor.time() == null ? null : Timestamp.valueOf(cursor.time());
+        if (value == null) {
+            args.add(cursor.id());
+            return descending ? "(%1$s IS NULL AND %2$s)".formatted(column, idAfter)
+                    : "(%1$s IS NULL AND %2$s OR %1$s IS NOT NULL)".formatted(column, idAfter);
+        }
+        args.add(value);
+        args.add(value);
+        args.add(cursor.id());
+        return descending ? "(%1$s < ? OR %1$s = ? AND %2$s OR %1$s IS NULL)".formatted(column, idAfter)
+                : "(%1$s > ? OR %1$s = ? AND %2$s)".formatted(column, idAfter);
+    }
+
+    private static String orderBy(Sort sort) {
+        if (sort.isUnsorted()) return " ORDER BY id";
+        StringJoiner orders = new StringJoiner(", ", " ORDER BY ", "");
+        for (Sort.Order o : sort) {
+            orders.add(column(o.getProperty()) + (o.isDescending() ? " DESC" : ""));
+        }
+        return orders.toString();
+    }
+
+    private static String column(String property) {
+        return switch (property) {
+            case "id", "plate", "status", "amount" -> property;
+            case "vehicleType" -> "vehicletype";
+            case "entryTime" -> "entrytime";
+            case "exitTime" -> "exittime";
+            default -> throw new IllegalArgumentException("Cannot sort History by " + property);
+        };
+    }
+
+    public record Batch(long lastId, LocalDateTime minEntry, LocalDateTime maxEntry, int count) {
+    }
+}
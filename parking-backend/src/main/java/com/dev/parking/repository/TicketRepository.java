@@ -2,19 +2,33 @@ package com.dev.parking.repository;
 
 import com.dev.parking.entity.Ticket;
 import com.dev.parking.entity.TicketStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 import java.util.Optional;
 
-public interface TicketRepository extends JpaRepository<Ticket, Long>, JpaSpecificationExecutor<Ticket> {
+public interface TicketRepository extends JpaRepository<Ticket, Long>, JpaSpecificationExecutor<Ticket>,
+        TicketRepositoryCustom {
 
-    boolean existsByPlateIgnoreCaseAndStatus(String plate, TicketStatus status);
+    // plateNorm is already upper-cased and trimmed, so these can use idx_tickets_plate_norm_status
+    boolean existsByPlateNormAndStatus(String plateNorm, TicketStatus status);
 
-    Optional<Ticket> findFirstByPlateIgnoreCaseAndStatusOrderByEntryTimeDesc(String plate, TicketStatus status);
+    Optional<Ticket> findFirstByPlateNormAndStatusOrderByEntryTimeDesc(String plateNorm, TicketStatus status);
 
+    // a locking read, so it also sees tickets other nodes committed after this transaction's snapshot
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Ticket> findByPlateNormAndStatusOrderByEntryTimeDesc(String plateNorm, TicketStatus status);
 
     List<Ticket> findByStatus(TicketStatus status, Sort sort);
+
+    @Query("select distinct t.plateNorm from Ticket t")
+    List<String> findDistinctPlates();
+
+    @Query("select t.vehicleType, count(t) from Ticket t where t.status = :status group by t.vehicleType")
+    List<Object[]> countByVehicleType(TicketStatus status);
 }
@@ -0,0 +1,42 @@
+package com.dev.parking.repository;
+
+import com.dev.parking.entity.Ticket;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface TicketRepositoryCustom {
+
+    /**
+     * Streams matching tickets off a forward-only JDBC cursor. Rows are detached as they are
+     * read, so the persistence context does not grow with the result. Must be consumed inside
+     * a transaction and closed by the caller.
+     */
+    Stream<Ticket> streamAll(Specification<Ticket> spec, Sort sort);
+
+    /**
+     * Up to {@code limit} matching tickets as {@link TicketView}s ({@code Integer.MAX_VALUE} for
+     * all). Only the listed columns are selected, so no entities, dirty-checking snapshots or
+     * persistence-context entries are created.
+     */
+    @Transactional(readOnly = true)
+    List<TicketView> findViews(Specification<Ticket> spec, Sort sort, int limit);
+
+    /**
+     * Up to {@code limit} tickets last changed after ({@code afterTime}, {@code afterId}) and no
+     * later than {@code bound}, in (updatedAt, id) order; a null {@code afterTime} starts at the
+     * beginning.
+     */
+    @Transactional(readOnly = true)
+    List<ChangedTicket> findChanges(LocalDateTime afterTime, long afterId, LocalDateTime bound, int limit);
+
+    /**
+     * The database's clock, which sets updatedAt.
+     */
+    @Transactional(readOnly = true)
+    LocalDateTime databaseNow();
+}
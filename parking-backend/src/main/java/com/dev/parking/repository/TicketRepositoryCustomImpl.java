@@ -0,0 +1,93 @@
+package com.dev.parking.repository;
+
+import com.dev.parking.entity.Ticket;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+class TicketRepositoryCustomImpl implements TicketRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    // Integer.MIN_VALUE makes Connector/J stream rows one by one instead of buffering the result
+    @Value("${parking.history.stream-fetch-size:-2147483648}")
+    private int streamFetchSize;
+
+    @Override
+    public Stream<Ticket> streamAll(Specification<Ticket> spec, Sort sort) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Ticket> query = cb.createQuery(Ticket.class);
+        Root<Ticket> root = query.from(Ticket.class);
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) query.where(predicate);
+        if (sort.isSorted()) query.orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        return em.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, streamFetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .map(t -> {
+                    em.detach(t);
+                    return t;
+                });
+    }
+
+    @Override
+    public List<TicketView> findViews(Specification<Ticket> spec, Sort sort, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<TicketView> query = cb.createQuery(TicketView.class);
+        Root<Ticket> root = query.from(Ticket.class);
+        query.select(cb.construct(TicketView.class, root.get("id"), root.get("plate"), root.get("vehicleType"),
+                root.get("status"), root.get("entryTime"), root.get("exitTime"), root.get("amount")));
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) query.where(predicate);
+        if (sort.isSorted()) query.orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        TypedQuery<TicketView> typed = em.createQuery(query).setHint(HibernateHints.HINT_READ_ONLY, true);
+        if (limit != Integer.MAX_VALUE) typed.setMaxResults(limit);
+        return typed.getResultList();
+    }
+
+    @Override
+    public List<ChangedTicket> findChanges(LocalDateTime afterTime, long afterId, LocalDateTime bound, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<ChangedTicket> query = cb.createQuery(ChangedTicket.class);
+        Root<Ticket> root = query.from(Ticket.class);
+        Path<LocalDateTime> updatedAt = root.get("updatedAt");
+        Path<Long> id = root.get("id");
+        query.select(cb.construct(ChangedTicket.class, id, root.get("plate"), root.get("vehicleType"),
+                root.get("status"), root.get("entryTime"), root.get("exitTime"), root.get("amount"), updatedAt));
+
+        Predicate settled = cb.lessThanOrEqualTo(updatedAt, bound);
+        query.where(afterTime == null ? settled : cb.and(settled, cb.or(cb.greaterThan(updatedAt, afterTime),
+                cb.and(cb.equal(updatedAt, afterTime), cb.greaterThan(id, afterId)))));
+        query.orderBy(cb.asc(updatedAt), cb.asc(id));
+
+        return em.createQuery(query)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public LocalDateTime databaseNow() {
+        return (LocalDateTime) em.createNativeQuery("SELECT NOW(6)", LocalDateTime.class).getSingleResult();
+    }
+}
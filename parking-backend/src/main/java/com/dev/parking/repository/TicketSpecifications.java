@@ -3,9 +3,14 @@ package com.dev.parking.repository;
 import com.dev.parking.entity.Ticket;
 import com.dev.parking.entity.TicketStatus;
 import com.dev.parking.entity.VehicleType;
+import com.dev.parking.service.HistoryCursor;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 
 public class TicketSpecifications {
 
@@ -28,6 +33,25 @@ public class TicketSpecifications {
         };
     }
 
+    // These compare the stored normalized plate as-is (no function on the column), so they can
+    // use idx_tickets_plate_norm_status. Arguments must already be normalized.
+
+    public static Specification<Ticket> plateEquals(String normalizedPlate) {
+        return (root, query, cb) -> cb.equal(root.get("plateNorm"), normalizedPlate);
+    }
+
+    public static Specification<Ticket> plateStartsWith(String normalizedPrefix) {
+        return (root, query, cb) -> cb.like(root.get("plateNorm"), escapeLike(normalizedPrefix) + "%", '\\');
+    }
+
+    public static Specification<Ticket> plateIn(Collection<String> plates) {
+        return (root, query, cb) -> plates.isEmpty() ? cb.disjunction() : root.get("plateNorm").in(plates);
+    }
+
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
 
     public static Specification<Ticket> entryTimeFrom(LocalDateTime from) {
         return (root, query, cb) -> from == null ? cb.conjunction()
@@ -38,4 +62,58 @@ public class TicketSpecifications {
         return (root, query, cb) -> to == null ? cb.conjunction()
                 : cb.lessThanOrEqualTo(root.get("entryTime"), to);
     }
+
+    public static Specification<Ticket> exitTimeFrom(LocalDateTime from) {
+        return (root, query, cb) -> from == null ? cb.conjunction()
+                : cb.greaterThanOrEqualTo(root.get("exitTime"), from);
+    }
+
+    public static Specification<Ticket> exitTimeTo(LocalDateTime to) {
+        return (root, query, cb) -> to == null ? cb.conjunction()
+                : cb.lessThanOrEqualTo(root.get("exitTime"), to);
+    }
+
+    /**
+     * {@code field} in {@code [from, before)}; a null {@code before} leaves the bucket open-ended.
+     * Half-open, so adjacent time buckets never return the same row.
+     */
+    public static Specification<Ticket> timeBucket(String field, LocalDateTime from, LocalDateTime before) {
+        return (root, query, cb) -> {
+            Path<LocalDateTime> time = root.get(field);
+            Predicate lower = cb.greaterThanOrEqualTo(time, from);
+            return before == null ? lower : cb.and(lower, cb.lessThan(time, before));
+        };
+    }
+
+    /**
+     * Rows strictly after {@code cursor} in {@code (field, id)} order. Follows MySQL's null
+     * ordering (NULL sorts lowest), so OPEN tickets come last in exitTime,desc.
+     */
+    public static Specification<Ticket> after(HistoryCursor cursor, boolean descending) {
+        return (root, query, cb) -> {
+            if (cursor == null) return cb.conjunction();
+
+            Path<Long> id = root.get("id");
+            Predicate idAfter = descending ? cb.lessThan(id, cursor.id()) : cb.greaterThan(id, cursor.id());
+
+            return switch (cursor.field()) {
+                case "id" -> idAfter;
+                case "plate" -> keyset(cb, root.get("plate"), cursor.value(), idAfter, descending);
+                default -> keyset(cb, root.get(cursor.field()), cursor.time(), idAfter, descending);
+            };
+        };
+    }
+
+    private static <Y extends Comparable<? super Y>> Predicate keyset(CriteriaBuilder cb, Path<Y> field, Y value,
+                                                                      Predicate idAfter, boolean descending) {
+        if (value == null) {
+            Predicate nullTail = cb.and(cb.isNull(field), idAfter);
+            return descending ? nullTail : cb.or(nullTail, cb.isNotNull(field));
+        }
+        Predicate sameValue = cb.and(cb.equal(field, value), idAfter);
+        if (descending) {
+            return cb.or(cb.lessThan(field, value), sameValue, cb.isNull(field));
+        }
+        return cb.or(cb.greaterThan(field, value), sameValue);
+    }
 }
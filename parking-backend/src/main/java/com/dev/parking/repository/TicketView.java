@@ -0,0 +1,21 @@
+package com.dev.parking.repository;
+
+import com.dev.parking.entity.Ticket;
+import com.dev.parking.entity.TicketStatus;
+import com.dev.parking.entity.VehicleType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only ticket row for listings, selected column by column instead of loading the entity.
+ * Serializes like {@link com.dev.parking.entity.Ticket}.
+ */
+public record TicketView(Long id, String plate, VehicleType vehicleType, TicketStatus status,
+                         LocalDateTime entryTime, LocalDateTime exitTime, BigDecimal amount) {
+
+    public static TicketView of(Ticket t) {
+        return new TicketView(t.getId(), t.getPlate(), t.getVehicleType(), t.getStatus(), t.getEntryTime(),
+                t.getExitTime(), t.getAmount());
+    }
+}
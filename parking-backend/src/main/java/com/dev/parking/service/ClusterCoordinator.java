@@ -0,0 +1,38 @@
+package com.dev.parking.service;
+
+/**
+ * What a backend node needs from its peers when several of them share one parking_db behind a
+ * load balancer. {@link SingleNodeCoordinator} is used by default; {@link MySqlClusterCoordinator}
+ * with {@code parking.cluster.enabled=true}.
+ *
+ * <p>In clustered mode the in-memory state ({@link OpenTicketIndex}, {@link OccupancyCounters},
+ * {@link HistoryQueryCache}, live events) can lag behind changes made on other nodes, so gate
+ * decisions are taken on the database instead, one node per plate at a time.
+ */
+public interface ClusterCoordinator {
+
+    /**
+     * Whether other nodes may change tickets too.
+     */
+    boolean isClustered();
+
+    String nodeId();
+
+    /**
+     * Blocks until no other node is handling {@code plate}, then holds the plate until the
+     * current transaction ends. Must be called inside a transaction.
+     */
+    void lockPlate(String plate);
+
+    /**
+     * Runs {@code job} unless a job of the same name is already running on another node;
+     * returns whether it ran.
+     */
+    boolean runExclusive(String name, Runnable job);
+
+    /**
+     * Asks the other nodes to reload their in-memory state, after a bulk write that published
+     * no {@link TicketEvent}s.
+     */
+    void resyncOthers();
+}
@@ -0,0 +1,105 @@
+package com.dev.parking.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.ErrorResponseException;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for the gate endpoints. A gate request is turned away with 429 and
+ * Retry-After, rather than left to wait on a request thread, when too many gate events are
+ * already in flight or when threads are queuing for a database connection.
+ *
+ * <p>Gate controllers retry a plate read anyway, so shedding early keeps latency flat for the
+ * events that are admitted instead of letting every request slow down together.
+ */
+@Component
+public class GateAdmission {
+
+    private final Semaphore inFlight;
+    private final DataSource dataSource;
+    private final int maxPoolWaiters;
+    private final Duration retryAfter;
+    private final MeterRegistry meters;
+
+    // Hikari creates its pool on first use, so the MXBean is looked up lazily
+    private volatile HikariPoolMXBean pool;
+    private volatile boolean notHikari;
+
+    public GateAdmission(DataSource dataSource, MeterRegistry meters,
+                         @Value("${parking.gate.max-in-flight:256}") int maxInFlight,
+                         @Value("${parking.gate.max-pool-waiters:4}") int maxPoolWaiters,
+                         @Value("${parking.gate.retry-after:1s}") Duration retryAfter) {
+        this.inFlight = new Semaphore(maxInFlight);
+        this.dataSource = dataSource;
+        this.maxPoolWaiters = maxPoolWaiters;
+        this.retryAfter = retryAfter;
+        this.meters = meters;
+    }
+
+    /**
+     * Runs {@code events} gate events' worth of {@code work} if there is room for them; the
+     * capacity is held until the returned future completes.
+     */
+    public <T> CompletableFuture<T> admit(int events, Supplier<CompletableFuture<T>> work) {
+        if (poolSaturated()) return rejected("pool", "Database connection pool is saturated");
+        if (!inFlight.tryAcquire(events)) return rejected("in-flight", "Too many gate events in flight");
+
+        CompletableFuture<T> result;
+        try {
+            result = work.get();
+        } catch (RuntimeException e) {
+            inFlight.release(events);
+            throw e;
+        }
+        return result.whenComplete((value, failure) -> inFlight.release(events));
+    }
+
+    /**
+     * 429 with Retry-After; also used by the ingestor when a lane queue is full.
+     */
+    public ErrorResponseException busy(String reason) {
+        ErrorResponseException e = new ErrorResponseException(HttpStatus.TOO_MANY_REQUESTS);
+        e.setDetail(reason);
+        e.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, retryAfter.toSeconds())));
+        return e;
+    }
+
+    //helpers
+
+    private boolean poolSaturated() {
+        HikariPoolMXBean p = pool();
+        return p != null && p.getIdleConnections() == 0 && p.getThreadsAwaitingConnection() >= maxPoolWaiters;
+    }
+
+    // the DataSource may be wrapped (see SqlStatementMetrics); without Hikari only in-flight is limited
+    private HikariPoolMXBean pool() {
+        if (pool != null || notHikari) return pool;
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                notHikari = true;
+                return null;
+            }
+            pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        } catch (SQLException e) {
+            notHikari = true;
+        }
+        return pool;
+    }
+
+    private <T> CompletableFuture<T> rejected(String reason, String detail) {
+        meters.counter("parking.gate.shed", "reason", reason).increment();
+        return CompletableFuture.failedFuture(busy(detail));
+    }
+}
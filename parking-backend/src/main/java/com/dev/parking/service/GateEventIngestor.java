@@ -0,0 +1,260 @@
+package com.dev.parking.service;
+
+import com.dev.parking.entity.Ticket;
+import com.dev.parking.entity.VehicleType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group-commits gate events. Events are queued on a bounded lane chosen by plate, and each
+ * lane's worker applies whatever has queued up in one transaction, so a burst of plate reads
+ * turns into a few JDBC batches instead of one round trip per car.
+ *
+ * <p>One worker per lane keeps events for the same plate in submission order, so lanes double as
+ * striped per-plate locks: two gates reading the same plate never race each other inside one
+ * instance. Across instances the open-plate unique key and the ticket version catch the race.
+ * A rejected event (e.g. entry for a plate that is already OPEN) only fails its own future; if
+ * the batch as a whole fails to commit, its events are replayed one transaction each.
+ *
+ * <p>Events may carry an idempotency key (see {@link GateIdempotency}); it is stored in the same
+ * transaction as the ticket change.
+ */
+@Component
+public class GateEventIngestor implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(GateEventIngestor.class);
+
+    private final TicketService ticketService;
+    private final GateIdempotency idempotency;
+    private final GateAdmission admission;
+    private final TransactionTemplate tx;
+    private final int maxBatch;
+    private final boolean virtualThreads;
+    private final Lane[] lanes;
+
+    private volatile boolean running;
+
+    public GateEventIngestor(TicketService ticketService, GateIdempotency idempotency, GateAdmission admission,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${parking.ingest.lanes:4}") int laneCount,
+                             @Value("${parking.ingest.queue-capacity:1024}") int queueCapacity,
+                             @Value("${parking.ingest.max-batch:50}") int maxBatch,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.ticketService = ticketService;
+        this.idempotency = idempotency;
+        this.admission = admission;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.maxBatch = maxBatch;
+        this.virtualThreads = virtualThreads;
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(i, new ArrayBlockingQueue<>(queueCapacity));
+        }
+    }
+
+    public CompletableFuture<Ticket> submitEntry(String plate, VehicleType type) {
+        return submitEntry(plate, type, null);
+    }
+
+    public CompletableFuture<Ticket> submitExit(String plate) {
+        return submitExit(plate, null);
+    }
+
+    /**
+     * Entry that runs at most once per {@code idempotencyKey}; a retry gets the original ticket.
+     */
+    public CompletableFuture<Ticket> submitEntry(String plate, VehicleType type, String idempotencyKey) {
+        return idempotency.execute(idempotencyKey, GateEvent.Kind.ENTRY, plate, type,
+                () -> submit(new GateEvent(GateEvent.Kind.ENTRY, plate, type, idempotencyKey)));
+    }
+
+    /**
+     * Exit that runs at most once per {@code idempotencyKey}; a retry gets the original ticket.
+     */
+    public CompletableFuture<Ticket> submitExit(String plate, String idempotencyKey) {
+        return idempotency.execute(idempotencyKey, GateEvent.Kind.EXIT, plate, null,
+                () -> submit(new GateEvent(GateEvent.Kind.EXIT, plate, null, idempotencyKey)));
+    }
+
+    private CompletableFuture<Ticket> submit(GateEvent event) {
+        if (!running) return CompletableFuture.failedFuture(notRunning());
+
+        String plate;
+        try {
+            plate = TicketService.normalizePlate(event.plate());
+        } catch (ResponseStatusException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        Lane lane = lanes[Math.floorMod(plate.hashCode(), lanes.length)];
+        if (!lane.queue.offer(event)) {
+            return CompletableFuture.failedFuture(admission.busy("Gate event queue is full"));
+        }
+        // stop() may have drained the lane between the check above and the offer; whoever takes
+        // the event off the queue (the worker, stop() or this) completes it
+        if (!running && lane.queue.remove(event)) {
+            event.result().completeExceptionally(notRunning());
+        }
+        return event.result();
+    }
+
+    /**
+     * Number of events waiting across all lanes.
+     */
+    public int backlog() {
+        int total = 0;
+        for (Lane lane : lanes) total += lane.queue.size();
+        return total;
+    }
+
+    //lifecycle
+
+    @Override
+    public void start() {
+        running = true;
+        for (Lane lane : lanes) {
+            Thread.Builder builder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+            lane.worker = builder.name("gate-ingest-" + lane.index).start(lane::run);
+        }
+    }
+
+    /**
+     * Lets the lanes finish what is queued, for up to 10 seconds in all; events still queued
+     * after that fail with 503.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        try {
+            for (Lane lane : lanes) {
+                long left = deadline - System.nanoTime();
+                if (left > 0) lane.worker.join(Duration.ofNanos(left));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            List<GateEvent> left = new ArrayList<>();
+            for (Lane lane : lanes) lane.queue.drainTo(left);
+            if (!left.isEmpty()) log.warn("Gate ingestion stopped with {} event(s) still queued", left.size());
+            left.forEach(e -> e.result().completeExceptionally(notRunning()));
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private static ResponseStatusException notRunning() {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Gate ingestion is not running");
+    }
+
+    //processing
+
+    private void process(List<GateEvent> batch) {
+        List<Object> outcomes = new ArrayList<>(batch.size());
+        try {
+            tx.executeWithoutResult(status -> batch.forEach(e -> outcomes.add(apply(e))));
+        } catch (RuntimeException batchFailure) {
+            log.warn("Gate batch of {} failed, replaying events one by one", batch.size(), batchFailure);
+            outcomes.clear();
+            for (GateEvent e : batch) {
+                try {
+                    outcomes.add(tx.execute(status -> apply(e)));
+                } catch (OptimisticLockingFailureException stale) {
+                    outcomes.add(new ResponseStatusException(HttpStatus.CONFLICT,
+                            "Ticket for " + e.plate() + " was changed concurrently, retry", stale));
+                } catch (RuntimeException single) {
+                    outcomes.add(single);
+                }
+            }
+        }
+
+        // futures complete only after commit, so callers never see an uncommitted ticket
+        for (int i = 0; i < batch.size(); i++) {
+            Object outcome = outcomes.get(i);
+            if (outcome instanceof Ticket t) {
+                batch.get(i).result().complete(t);
+            } else {
+                batch.get(i).result().completeExceptionally((Throwable) outcome);
+            }
+        }
+    }
+
+    // returns the ticket, or the rejection so the rest of the batch can carry on;
+    // a duplicate idempotency key is not a rejection, it has to roll the change back
+    private Object apply(GateEvent e) {
+        Ticket t;
+        try {
+            t = switch (e.kind()) {
+                case ENTRY -> ticketService.manualEntry(e.plate(), e.type());
+                case EXIT -> ticketService.manualExit(e.plate());
+            };
+        } catch (ResponseStatusException rejected) {
+            return rejected;
+        }
+        if (e.idempotencyKey() != null && !e.idempotencyKey().isBlank()) {
+            idempotency.record(e.idempotencyKey(), e.kind(), e.plate(), e.type(), t.getId());
+        }
+        return t;
+    }
+
+    private final class Lane {
+        final int index;
+        final BlockingQueue<GateEvent> queue;
+        Thread worker;
+
+        Lane(int index, BlockingQueue<GateEvent> queue) {
+            this.index = index;
+            this.queue = queue;
+        }
+
+        void run() {
+            List<GateEvent> batch = new ArrayList<>(maxBatch);
+            while (running || !queue.isEmpty()) {
+                try {
+                    GateEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                    queue.drainTo(batch, maxBatch - 1);
+                    process(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    log.error("Gate lane {} failed to process a batch", index, e);
+                    batch.forEach(event -> event.result().completeExceptionally(e));
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    record GateEvent(Kind kind, String plate, VehicleType type, String idempotencyKey,
+                     CompletableFuture<Ticket> result) {
+
+        enum Kind { ENTRY, EXIT }
+
+        GateEvent(Kind kind, String plate, VehicleType type, String idempotencyKey) {
+            this(kind, plate, type, idempotencyKey, new CompletableFuture<>());
+        }
+    }
+}
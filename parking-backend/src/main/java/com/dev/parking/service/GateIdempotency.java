@@ -0,0 +1,189 @@
+package com.dev.parking.service;
+
+import com.dev.parking.entity.Ticket;
+import com.dev.parking.entity.VehicleType;
+import com.dev.parking.repository.TicketRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency keys for gate entry/exit requests. A request with a key runs once. A retry with
+ * the same key gets the same ticket back, whether the first attempt is still in flight here,
+ * already committed, or was committed by another instance. The key is tied to what it was used
+ * for (op, normalized plate, and vehicle type for entries); reusing it for a different request
+ * is a 409.
+ *
+ * <p>Keys are written to gate_requests in the same transaction as the ticket change (see
+ * {@link GateEventIngestor}), so a key is stored exactly when its change committed. Recent
+ * results are also kept in memory, which makes the usual retry a map lookup.
+ */
+@Component
+public class GateIdempotency {
+
+    private static final Logger log = LoggerFactory.getLogger(GateIdempotency.class);
+
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private static final int PURGE_CHUNK = 5000;
+
+    private final JdbcTemplate jdbc;
+    private final TicketRepository tickets;
+    private final Duration ttl;
+
+    private final ConcurrentHashMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final Cache<String, Done> recent;
+
+    public GateIdempotency(JdbcTemplate jdbc, TicketRepository tickets,
+                           @Value("${parking.gate.idempotency-ttl:24h}") Duration ttl,
+                           @Value("${parking.gate.idempotency-cache-size:100000}") long cacheSize) {
+        this.jdbc = jdbc;
+        this.tickets = tickets;
+        this.ttl = ttl;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Runs {@code action} unless {@code key} has been seen before, in which case the earlier
+     * request's ticket is returned. Without a key the action simply runs.
+     */
+    CompletableFuture<Ticket> execute(String key, GateEventIngestor.GateEvent.Kind op, String plate,
+                                      VehicleType type, Supplier<CompletableFuture<Ticket>> action) {
+        if (key == null || key.isBlank()) return action.get();
+        String k = key.trim();
+        if (k.length() > MAX_KEY_LENGTH) {
+            return CompletableFuture.failedFuture(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Idempotency key longer than " + MAX_KEY_LENGTH + " characters"));
+        }
+
+        String fingerprint = fingerprint(op, plate, type);
+
+        Done done = recent.getIfPresent(k);
+        if (done != null) {
+            return done.fingerprint().equals(fingerprint) ? CompletableFuture.completedFuture(done.ticket())
+                    : CompletableFuture.failedFuture(reused(k));
+        }
+
+        Flight mine = new Flight(fingerprint, new CompletableFuture<>());
+        Flight running = inFlight.putIfAbsent(k, mine);
+        if (running != null) {
+            return running.fingerprint().equals(fingerprint) ? running.result()
+                    : CompletableFuture.failedFuture(reused(k));
+        }
+
+        try {
+            // committed before a restart, or by another instance
+            Ticket stored = stored(k, fingerprint);
+            if (stored != null) {
+                finish(k, mine, stored, null);
+                return mine.result();
+            }
+        } catch (RuntimeException e) {
+            finish(k, mine, null, e);
+            return mine.result();
+        }
+
+        action.get().whenComplete((ticket, failure) -> {
+            Throwable cause = failure instanceof CompletionException ce && ce.getCause() != null ? ce.getCause() : failure;
+            if (cause instanceof DuplicateKeyException) {
+                // another instance committed this key while ours was running; ours rolled back
+                try {
+                    // no stored key means the duplicate was the ticket itself (plate already OPEN)
+                    Ticket winner = stored(k, fingerprint);
+                    finish(k, mine, winner, winner == null ? cause : null);
+                } catch (RuntimeException e) {
+                    finish(k, mine, null, e);
+                }
+                return;
+            }
+            finish(k, mine, ticket, cause);
+        });
+        return mine.result();
+    }
+
+    /**
+     * Stores {@code key} for a ticket change in the current transaction. Throws
+     * {@link DuplicateKeyException} if another transaction stored it first.
+     */
+    void record(String key, GateEventIngestor.GateEvent.Kind op, String plate, VehicleType type, long ticketId) {
+        jdbc.update("INSERT INTO gate_requests (idem_key, op, fingerprint, ticket_id, created_at) VALUES (?, ?, ?, ?, ?)",
+                key.trim(), op.name(), fingerprint(op, plate, type), ticketId, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    @Scheduled(fixedDelayString = "${parking.gate.idempotency-purge-interval:1h}",
+            initialDelayString = "${parking.gate.idempotency-purge-interval:1h}")
+    public void purge() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(ttl));
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbc.update("DELETE FROM gate_requests WHERE created_at < ? LIMIT " + PURGE_CHUNK, cutoff);
+            total += deleted;
+        } while (deleted == PURGE_CHUNK);
+        if (total > 0) log.info("Purged {} idempotency key(s) older than {}", total, ttl);
+    }
+
+    //helpers
+
+    private void finish(String key, Flight flight, Ticket ticket, Throwable failure) {
+        // cached before the in-flight entry goes, so a concurrent retry always finds one of them
+        if (failure == null) recent.put(key, new Done(flight.fingerprint(), ticket));
+        inFlight.remove(key, flight);
+        if (failure == null) {
+            flight.result().complete(ticket);
+        } else {
+            flight.result().completeExceptionally(failure);
+        }
+    }
+
+    private Ticket stored(String key, String fingerprint) {
+        List<StoredRequest> rows = jdbc.query("SELECT fingerprint, ticket_id FROM gate_requests WHERE idem_key = ?",
+                (rs, i) -> new StoredRequest(rs.getString(1), rs.getLong(2)), key);
+        if (rows.isEmpty()) return null;
+
+        StoredRequest request = rows.getFirst();
+        if (!request.fingerprint().equals(fingerprint)) throw reused(key);
+        return tickets.findById(request.ticketId()).orElseThrow(() -> new ResponseStatusException(HttpStatus.GONE,
+                "Ticket " + request.ticketId() + " for idempotency key " + key + " is no longer available"));
+    }
+
+    // what a key was used for; plates as TicketService normalizes them, blank ones are rejected there
+    static String fingerprint(GateEventIngestor.GateEvent.Kind op, String plate, VehicleType type) {
+        String p = plate == null ? "" : plate.trim().toUpperCase();
+        return op == GateEventIngestor.GateEvent.Kind.ENTRY ? op + ":" + p + ":" + type : op + ":" + p;
+    }
+
+    private static ResponseStatusException reused(String key) {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "Idempotency key " + key + " was already used for a different request");
+    }
+
+    private record Flight(String fingerprint, CompletableFuture<Ticket> result) {
+    }
+
+    private record StoredRequest(String fingerprint, long ticketId) {
+    }
+
+    private record Done(String fingerprint, Ticket ticket) {
+    }
+}
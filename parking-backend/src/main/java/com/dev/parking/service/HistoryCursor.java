@@ -0,0 +1,51 @@
+package com.dev.parking.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Keyset position in a sorted ticket listing: the sort key value of the last row returned
+ * plus its id as tie-breaker. Encoded as an opaque URL-safe token for clients.
+ *
+ * @param field property the cursor was produced for (exitTime, entryTime, plate or id; updatedAt
+ *              for the changes feed)
+ * @param value last row's value for {@code field}, or null when that row had no value
+ * @param id    last row's id
+ */
+public record HistoryCursor(String field, String value, long id) {
+
+    private static final Set<String> FIELDS = Set.of("exitTime", "entryTime", "updatedAt", "plate", "id");
+
+    /**
+     * {@code value} as a timestamp, for the cursors on a time (all but plate and id).
+     */
+    public LocalDateTime time() {
+        return value == null ? null : LocalDateTime.parse(value);
+    }
+
+    public String encode() {
+        String raw = field + "|" + id + (value == null ? "" : "|" + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static HistoryCursor decode(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length < 2 || !FIELDS.contains(parts[0])) throw new IllegalArgumentException(raw);
+            HistoryCursor cursor = new HistoryCursor(parts[0], parts.length == 3 ? parts[2] : null, Long.parseLong(parts[1]));
+            // parsed here rather than at query time, so a bad token is a 400 and not a failed query
+            if (!cursor.field().equals("plate") && !cursor.field().equals("id")) cursor.time();
+            return cursor;
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
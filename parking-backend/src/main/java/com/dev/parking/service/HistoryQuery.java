@@ -0,0 +1,58 @@
+package com.dev.parking.service;
+
+import com.dev.parking.entity.TicketStatus;
+import com.dev.parking.entity.VehicleType;
+
+import java.util.Locale;
+
+/**
+ * Normalized History filter + sort, used as the cache key for listings. Requests that differ
+ * only in plate case/whitespace, or in how the sort is spelled, map to the same key.
+ */
+public record HistoryQuery(TicketStatus status, VehicleType vehicleType, String plate, PlateMatch plateMatch,
+                           TimeWindow entry, TimeWindow exit, String sort) {
+
+    public static HistoryQuery of(TicketStatus status, VehicleType vehicleType, String plate, PlateMatch plateMatch,
+                                  String sort) {
+        return of(status, vehicleType, plate, plateMatch, TimeWindow.ALL, TimeWindow.ALL, sort);
+    }
+
+    public static HistoryQuery of(TicketStatus status, VehicleType vehicleType, String plate, PlateMatch plateMatch,
+                                  TimeWindow entry, TimeWindow exit, String sort) {
+        boolean noPlate = plate == null || plate.isBlank();
+        return new HistoryQuery(status, vehicleType,
+                noPlate ? null : TicketService.normalizePlate(plate),
+                noPlate ? null : plateMatch == null ? PlateMatch.CONTAINS : plateMatch,
+                entry == null ? TimeWindow.ALL : entry,
+                exit == null ? TimeWindow.ALL : exit,
+                normalizeSort(sort));
+    }
+
+    // "exitTime , DESC" -> "exitTime,desc"; property names stay case-sensitive
+    private static String normalizeSort(String sort) {
+        if (sort == null || sort.isBlank()) return null;
+        String s = sort.replace(" ", "");
+        int comma = s.indexOf(',');
+        return comma < 0 ? s : s.substring(0, comma + 1) + s.substring(comma + 1).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Whether the listing for this query could change because of {@code event}.
+     */
+    boolean affectedBy(TicketEvent event) {
+        // an exit moves the ticket out of OPEN listings and into CLOSED ones
+        boolean statusMatches = status == null || status == event.status()
+                || (event.type() == TicketEvent.Type.CLOSED && status == TicketStatus.OPEN);
+        if (!statusMatches) return false;
+        if (vehicleType != null && vehicleType != event.vehicleType()) return false;
+        if (!entry.contains(event.entryTime()) || !exit.contains(event.exitTime())) return false;
+        if (plate == null) return true;
+
+        String p = TicketService.normalizePlate(event.plate());
+        return switch (plateMatch) {
+            case EXACT -> p.equals(plate);
+            case PREFIX -> p.startsWith(plate);
+            case CONTAINS -> p.contains(plate);
+        };
+    }
+}
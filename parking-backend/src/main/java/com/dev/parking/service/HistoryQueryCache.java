@@ -0,0 +1,169 @@
+package com.dev.parking.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+/**
+ * Serialized History listings keyed by {@link HistoryQuery}, bounded by total size and TTL.
+ *
+ * <p>Committed {@link TicketEvent}s evict exactly the cached listings the changed ticket could
+ * appear in. A listing loaded while an event was being processed is served but not cached, so
+ * a read that raced a commit never sticks around.
+ *
+ * <p>Identical misses share one load, as long as no invalidation happened in between: a request
+ * that arrives after one starts its own.
+ */
+@Component
+public class HistoryQueryCache {
+
+    private final Cache<HistoryQuery, Entry> cache;
+    private final long maxEntryBytes;
+
+    // bumped on every invalidation; loads that straddle a bump are not cached
+    private final AtomicLong generation = new AtomicLong();
+    private final ConcurrentHashMap<Flight, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    public HistoryQueryCache(@Value("${parking.history-cache.ttl:30s}") Duration ttl,
+                             @Value("${parking.history-cache.max-size:64MB}") DataSize maxSize,
+                             @Value("${parking.history-cache.max-entry-size:8MB}") DataSize maxEntrySize,
+                             MeterRegistry meters) {
+        this.maxEntryBytes = maxEntrySize.toBytes();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((HistoryQuery k, Entry e) -> e.body().length)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        // cache.gets{cache=history,result=hit|miss}, evictions and size, plus the ratio for dashboards
+        CaffeineCacheMetrics.monitor(meters, cache, "history");
+        Gauge.builder("parking.history.cache.hit.ratio", cache, c -> c.stats().hitRate()).register(meters);
+    }
+
+    /**
+     * Cached entry for the query, loading and (size permitting) caching it on a miss.
+     */
+    public Entry get(HistoryQuery query, Supplier<byte[]> loader) {
+        return lookup(query, loader).entry();
+    }
+
+    /**
+     * Like {@link #get}, also telling how the entry was found. A request that joined another's
+     * load counts as a miss in the cache stats, since it still waited for the database.
+     */
+    public Lookup lookup(HistoryQuery query, Supplier<byte[]> loader) {
+        Entry cached = cache.getIfPresent(query);
+        if (cached != null) return new Lookup(cached, Source.HIT);
+
+        Flight flight = new Flight(query, generation.get());
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> running = inFlight.putIfAbsent(flight, mine);
+        if (running != null) return new Lookup(await(running), Source.SHARED);
+
+        try {
+            Entry loaded = Entry.of(loader.get());
+            if (loaded.body().length <= maxEntryBytes && generation.get() == flight.generation()) {
+                cache.put(query, loaded);
+                // an invalidation bumps the generation before it evicts, so if it did not see
+                // this entry, this sees the bump
+                if (generation.get() != flight.generation()) cache.asMap().remove(query, loaded);
+            }
+            mine.complete(loaded);
+            return new Lookup(loaded, Source.MISS);
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flight, mine);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(TicketEvent event) {
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(q -> q.affectedBy(event));
+    }
+
+    /**
+     * Drops everything, for writes that bypass {@link TicketService} (e.g. bulk re-pricing).
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    //helpers
+
+    private static Entry await(CompletableFuture<Entry> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException r) throw r;
+            if (e.getCause() instanceof Error err) throw err;
+            throw e;
+        }
+    }
+
+    private record Flight(HistoryQuery query, long generation) {
+    }
+
+    /**
+     * HIT: served from the cache; MISS: loaded by this request; SHARED: waited for another
+     * request's load of the same query.
+     */
+    public enum Source {
+        HIT, MISS, SHARED;
+
+        public String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public record Lookup(Entry entry, Source source) {
+    }
+
+    public record Entry(byte[] body, String etag) {
+
+        static Entry of(byte[] body) {
+            CRC32C crc = new CRC32C();
+            crc.update(body);
+            String etag = "\"" + HexFormat.of().toHexDigits(crc.getValue()) + "-" + Integer.toHexString(body.length) + "\"";
+            return new Entry(body, etag);
+        }
+
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) return false;
+            for (String tag : ifNoneMatch.split(",")) {
+                String t = tag.trim();
+                if (t.equals("*") || t.equals(etag) || t.equals("W/" + etag)) return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.dev.parking.service;
+
+import com.dev.parking.entity.VehicleType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Entries, exits and revenue of one vehicle type in the hour starting at {@code bucketStart}.
+ * Entries are counted in the hour of entry, exits and revenue in the hour of exit.
+ */
+public record HourlyStats(LocalDateTime bucketStart, VehicleType vehicleType, long entries, long exits,
+                          BigDecimal revenue) {
+}
@@ -0,0 +1,202 @@
+package com.dev.parking.service;
+
+import com.dev.parking.entity.VehicleType;
+import com.dev.parking.repository.HourlyStatsRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps the hourly rollup current without touching the tickets table. Committed
+ * {@link TicketEvent}s are added to in-memory per-hour deltas, which are flushed to
+ * ticket_hourly_stats as one batched upsert every {@code parking.stats.flush-interval}.
+ * Reads merge the stored rows with the not-yet-flushed deltas.
+ *
+ * <p>A flush commits its rows and drops the deltas it wrote in one step as far as readers are
+ * concerned, so a read never counts the same change twice or not at all.
+ */
+@Component
+public class HourlyStatsRollup {
+
+    private static final Logger log = LoggerFactory.getLogger(HourlyStatsRollup.class);
+
+    private final HourlyStatsRepository repository;
+    private final TransactionTemplate tx;
+
+    // recording takes the read lock (many at once); flushing swaps the map under the write lock
+    private final ReentrantReadWriteLock swap = new ReentrantReadWriteLock();
+    // readers take the read lock; moving deltas between pending, flushing and the table takes the write lock
+    private final ReentrantReadWriteLock visible = new ReentrantReadWriteLock();
+    // the scheduled and the shutdown flush must not interleave
+    private final ReentrantLock flushes = new ReentrantLock();
+    private volatile ConcurrentHashMap<Bucket, Delta> pending = new ConcurrentHashMap<>();
+    // deltas being written right now, still counted by readers until the write commits
+    private volatile Map<Bucket, Delta> flushing = Map.of();
+
+    public HourlyStatsRollup(HourlyStatsRepository repository, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    // local changes only: every node flushes its own deltas, which add up in ticket_hourly_stats
+    @TransactionalEventListener
+    public void on(TicketEvent event) {
+        switch (event.type()) {
+            case OPENED -> record(event.entryTime(), event.vehicleType(), 1, 0, null);
+            case CLOSED -> record(event.exitTime(), event.vehicleType(), 0, 1, event.amount());
+        }
+    }
+
+    void record(LocalDateTime at, VehicleType type, long entries, long exits, BigDecimal amount) {
+        if (at == null) return;
+        Bucket bucket = new Bucket(at.truncatedTo(ChronoUnit.HOURS), type);
+        swap.readLock().lock();
+        try {
+            Delta d = pending.computeIfAbsent(bucket, b -> new Delta());
+            d.entries.add(entries);
+            d.exits.add(exits);
+            if (amount != null) d.revenueCents.add(amount.movePointRight(2).longValue());
+        } finally {
+            swap.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${parking.stats.flush-interval:5s}")
+    public void flush() {
+        flushes.lock();
+        try {
+            Map<Bucket, Delta> drained = drain();
+            if (drained.isEmpty()) return;
+            FlushCompletion completion = new FlushCompletion(drained);
+            try {
+                tx.executeWithoutResult(status -> {
+                    TransactionSynchronizationManager.registerSynchronization(completion);
+                    repository.addAll(drained.entrySet().stream().map(e -> e.getValue().toStats(e.getKey())).toList());
+                });
+            } catch (RuntimeException e) {
+                log.warn("Hourly stats flush failed, keeping {} bucket(s) for the next attempt", drained.size(), e);
+                // the transaction never started, so the completion did not run
+                if (!completion.done) completion.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            flushes.unlock();
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Stored buckets in {@code [from, to)} merged with deltas that have not been flushed yet.
+     */
+    public List<HourlyStats> between(LocalDateTime from, LocalDateTime to, VehicleType type) {
+        Map<Bucket, HourlyStats> merged = new HashMap<>();
+        visible.readLock().lock();
+        try {
+            for (HourlyStats s : repository.findBetween(from, to, type)) {
+                merged.put(new Bucket(s.bucketStart(), s.vehicleType()), s);
+            }
+            for (Map<Bucket, Delta> unflushed : List.of(flushing, pending)) {
+                unflushed.forEach((b, d) -> {
+                    if (b.hour().isBefore(from) || !b.hour().isBefore(to)) return;
+                    if (type != null && b.type() != type) return;
+                    merged.merge(b, d.toStats(b), HourlyStatsRollup::sum);
+                });
+            }
+        } finally {
+            visible.readLock().unlock();
+        }
+
+        List<HourlyStats> result = new ArrayList<>(merged.values());
+        result.sort(Comparator.comparing(HourlyStats::bucketStart).thenComparing(HourlyStats::vehicleType));
+        return result;
+    }
+
+    private Map<Bucket, Delta> drain() {
+        visible.writeLock().lock();
+        swap.writeLock().lock();
+        try {
+            Map<Bucket, Delta> drained = pending;
+            flushing = drained;
+            pending = new ConcurrentHashMap<>();
+            return drained;
+        } finally {
+            swap.writeLock().unlock();
+            visible.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ends a flush: once committed the deltas are dropped, otherwise they go back to pending.
+     * The write lock is taken before the commit and released after, so readers see the rows or
+     * the deltas, never both.
+     */
+    private final class FlushCompletion implements TransactionSynchronization {
+        final Map<Bucket, Delta> drained;
+        boolean done;
+
+        FlushCompletion(Map<Bucket, Delta> drained) {
+            this.drained = drained;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            visible.writeLock().lock();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (!visible.writeLock().isHeldByCurrentThread()) visible.writeLock().lock();
+            try {
+                if (status != STATUS_COMMITTED) {
+                    drained.forEach((b, d) -> record(b.hour(), b.type(), d.entries.sum(), d.exits.sum(),
+                            BigDecimal.valueOf(d.revenueCents.sum(), 2)));
+                }
+                flushing = Map.of();
+                done = true;
+            } finally {
+                visible.writeLock().unlock();
+            }
+        }
+    }
+
+    private static HourlyStats sum(HourlyStats a, HourlyStats b) {
+        return new HourlyStats(a.bucketStart(), a.vehicleType(), a.entries() + b.entries(),
+                a.exits() + b.exits(), a.revenue().add(b.revenue()));
+    }
+
+    private record Bucket(LocalDateTime hour, VehicleType type) {
+    }
+
+    private static final class Delta {
+        final LongAdder entries = new LongAdder();
+        final LongAdder exits = new LongAdder();
+        final LongAdder revenueCents = new LongAdder();
+
+        HourlyStats toStats(Bucket b) {
+            return new HourlyStats(b.hour(), b.type(), entries.sum(), exits.sum(), BigDecimal.valueOf(revenueCents.sum(), 2));
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.dev.parking.service;
+
+import com.dev.parking.entity.TicketStatus;
+import com.dev.parking.entity.VehicleType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Coordinates backend nodes through the database they share.
+ *
+ * <p>Plates are serialized with row locks on plate_locks, which MySQL releases with the
+ * transaction. Named jobs use {@code GET_LOCK}, held on a connection of their own while they run.
+ * Every committed {@link TicketEvent} is also written to ticket_changes in its transaction; each
+ * node polls that table and replays the other nodes' changes into its {@link OpenTicketIndex}
+ * and {@link PlateSearchIndex}, and republishes them outside any transaction for listeners
+ * declared with {@code fallbackExecution = true}.
+ *
+ * <p>Change ids come from AUTO_INCREMENT, so they are allocated in insert order but may commit
+ * out of order. The poller therefore remembers which ids above its cursor it has handled and
+ * only moves the cursor over a gap once the gap is older than {@code parking.cluster.gap-timeout}
+ * (by then its transaction rolled back and the id will never appear).
+ */
+@Component
+@ConditionalOnProperty(name = "parking.cluster.enabled", havingValue = "true")
+public class MySqlClusterCoordinator implements ClusterCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(MySqlClusterCoordinator.class);
+
+    private static final String SELECT_CHANGES =
+            "SELECT id, node_id, kind, ticket_id, plate, vehicletype, status, entrytime, exittime, amount FROM ticket_changes ";
+    private static final String RESYNC = "RESYNC";
+    private static final int PURGE_CHUNK = 5000;
+
+    private final JdbcTemplate jdbc;
+    private final DataSource dataSource;
+    private final OpenTicketIndex openTickets;
+    private final PlateSearchIndex plateSearch;
+    private final OccupancyCounters occupancy;
+    private final HistoryQueryCache historyCache;
+    private final TicketEventBroadcaster broadcaster;
+    private final ApplicationEventPublisher events;
+    private final String nodeId;
+    private final Duration gapTimeout;
+    private final int pollBatch;
+    private final Duration retention;
+
+    // poller state, only touched by the scheduled poll
+    private long cursor;                                   // every change up to here is handled
+    private long high;                                     // highest change handled
+    private final TreeSet<Long> handled = new TreeSet<>(); // handled ids in (cursor, high]
+    private long gapSeen = System.nanoTime();
+
+    public MySqlClusterCoordinator(JdbcTemplate jdbc, DataSource dataSource, OpenTicketIndex openTickets,
+                                   PlateSearchIndex plateSearch, OccupancyCounters occupancy,
+                                   HistoryQueryCache historyCache, TicketEventBroadcaster broadcaster,
+                                   ApplicationEventPublisher events,
+                                   @Value("${parking.cluster.node-id:}") String nodeId,
+                                   @Value("${parking.cluster.gap-timeout:10s}") Duration gapTimeout,
+                                   @Value("${parking.cluster.poll-batch:1000}") int pollBatch,
+                                   @Value("${parking.cluster.retention:1h}") Duration retention) {
+        this.jdbc = jdbc;
+        this.dataSource = dataSource;
+        this.openTickets = openTickets;
+        this.plateSearch = plateSearch;
+        this.occupancy = occupancy;
+        this.historyCache = historyCache;
+        this.broadcaster = broadcaster;
+        this.events = events;
+        this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+        this.gapTimeout = gapTimeout;
+        this.pollBatch = pollBatch;
+        this.retention = retention;
+
+        // before the in-memory state is warmed, so a change committed in between is replayed, not lost
+        Long last = jdbc.queryForObject("SELECT MAX(id) FROM ticket_changes", Long.class);
+        this.cursor = last == null ? 0 : last;
+        this.high = cursor;
+        log.info("Cluster node {} following ticket changes after #{}", this.nodeId, cursor);
+    }
+
+    @Override
+    public boolean isClustered() {
+        return true;
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void lockPlate(String plate) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Plate locks are held by a transaction");
+        }
+        // the upsert locks the plate's row whether it inserts or not
+        jdbc.update("INSERT INTO plate_locks (plate) VALUES (?) ON DUPLICATE KEY UPDATE plate = plate", plate);
+    }
+
+    @Override
+    public boolean runExclusive(String name, Runnable job) {
+        String lock = "parking." + name;
+        try (Connection c = dataSource.getConnection()) {
+            if (!namedLock(c, "SELECT GET_LOCK(?, 0)", lock)) {
+                log.debug("Skipping {}: running on another node", name);
+                return false;
+            }
+            try {
+                job.run();
+                return true;
+            } finally {
+                namedLock(c, "SELECT RELEASE_LOCK(?)", lock);
+            }
+        } catch (SQLException e) {
+            throw new CannotGetJdbcConnectionException("Could not take job lock " + lock, e);
+        }
+    }
+
+    @Override
+    public void resyncOthers() {
+        jdbc.update("INSERT INTO ticket_changes (node_id, kind, created_at) VALUES (?, ?, ?)",
+                nodeId, RESYNC, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    // joins the transaction that made the change, so the row exists exactly if the change committed
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void on(TicketEvent event) {
+        jdbc.update("INSERT INTO ticket_changes (node_id, kind, ticket_id, plate, vehicletype, status, entrytime, "
+                        + "exittime, amount, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                nodeId, event.type().name(), event.ticketId(), event.plate(), event.vehicleType().name(),
+                event.status().name(), timestamp(event.entryTime()), timestamp(event.exitTime()), event.amount(),
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    @Scheduled(fixedDelayString = "${parking.cluster.poll-interval:200ms}")
+    public void poll() {
+        // late commits into a gap first, then whatever is new
+        if (high > cursor + handled.size()) {
+            handle(jdbc.query(SELECT_CHANGES + "WHERE id > ? AND id < ? ORDER BY id", CHANGE, cursor, high));
+        }
+        List<Change> fresh;
+        do {
+            fresh = jdbc.query(SELECT_CHANGES + "WHERE id > ? ORDER BY id LIMIT ?", CHANGE, high, pollBatch);
+            handle(fresh);
+        } while (fresh.size() == pollBatch);
+        advance();
+    }
+
+    @Scheduled(fixedDelayString = "${parking.cluster.retention:1h}", initialDelayString = "${parking.cluster.retention:1h}")
+    public void purge() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(retention));
+        int deleted;
+        do {
+            deleted = jdbc.update("DELETE FROM ticket_changes WHERE created_at < ? LIMIT " + PURGE_CHUNK, cutoff);
+        } while (deleted == PURGE_CHUNK);
+    }
+
+    //helpers
+
+    private void handle(List<Change> changes) {
+        for (Change c : changes) {
+            if (c.id() <= cursor || !handled.add(c.id())) continue;
+            high = Math.max(high, c.id());
+            if (!c.nodeId().equals(nodeId)) apply(c);
+        }
+    }
+
+    private void apply(Change c) {
+        if (c.event() == null) {
+            historyCache.invalidateAll();
+            openTickets.reload();
+            occupancy.reload();
+            plateSearch.reload();
+            broadcaster.resync();
+            return;
+        }
+        openTickets.apply(c.event());
+        plateSearch.add(c.event().plate());
+        events.publishEvent(c.event());
+    }
+
+    private void advance() {
+        long before = cursor;
+        while (!handled.isEmpty() && handled.first() == cursor + 1) {
+            cursor = handled.pollFirst();
+        }
+        if (handled.isEmpty() || cursor != before) {
+            gapSeen = System.nanoTime();
+        } else if (System.nanoTime() - gapSeen > gapTimeout.toNanos()) {
+            log.debug("Skipping ticket change(s) #{}..#{}, never committed", cursor + 1, handled.first() - 1);
+            cursor = handled.first() - 1;
+            advance();
+        }
+    }
+
+    private static boolean namedLock(Connection c, String sql, String name) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private static String defaultNodeId() {
+        // pid@host
+        String name = ManagementFactory.getRuntimeMXBean().getName();
+        return name.length() <= 64 ? name : name.substring(0, 64);
+    }
+
+    private static Timestamp timestamp(LocalDateTime t) {
+        return t == null ? null : Timestamp.valueOf(t);
+    }
+
+    private static LocalDateTime localDateTime(Timestamp t) {
+        return t == null ? null : t.toLocalDateTime();
+    }
+
+    private static final RowMapper<Change> CHANGE = (rs, i) -> {
+        String kind = rs.getString("kind");
+        TicketEvent event = kind.equals(RESYNC) ? null : new TicketEvent(
+                TicketEvent.Type.valueOf(kind),
+                rs.getLong("ticket_id"),
+                rs.getString("plate"),
+                VehicleType.valueOf(rs.getString("vehicletype")),
+                TicketStatus.valueOf(rs.getString("status")),
+                localDateTime(rs.getTimestamp("entrytime")),
+                localDateTime(rs.getTimestamp("exittime")),
+                rs.getObject("amount", BigDecimal.class));
+        return new Change(rs.getLong("id"), rs.getString("node_id"), event);
+    };
+
+    /**
+     * A row of ticket_changes; {@code event} is null for a RESYNC.
+     */
+    private record Change(long id, String nodeId, TicketEvent event) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.dev.parking.service;
+
+import com.dev.parking.entity.TicketStatus;
+import com.dev.parking.entity.VehicleType;
+import com.dev.parking.repository.TicketRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Live count of OPEN tickets per vehicle type. Seeded with one grouped count at startup (and
+ * recounted when another node asks for a resync), then moved by committed {@link TicketEvent}s,
+ * so reading occupancy never touches the database.
+ */
+@Component
+public class OccupancyCounters implements SmartInitializingSingleton {
+
+    private static final VehicleType[] TYPES = VehicleType.values();
+
+    private final TicketRepository ticketRepository;
+    private final AtomicLongArray open = new AtomicLongArray(TYPES.length);
+    // every delta applied so far, so a reload can add back the ones that came in during its count;
+    // both arrays change together under this object's lock
+    private final long[] applied = new long[TYPES.length];
+
+    public OccupancyCounters(TicketRepository ticketRepository) {
+        this.ticketRepository = ticketRepository;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        reload();
+    }
+
+    /**
+     * Recounts from the database. Types without OPEN tickets go back to zero; changes applied
+     * while the count ran are kept on top of it.
+     */
+    public void reload() {
+        long[] before;
+        synchronized (this) {
+            before = applied.clone();
+        }
+        long[] counted = new long[TYPES.length];
+        for (Object[] row : ticketRepository.countByVehicleType(TicketStatus.OPEN)) {
+            counted[((VehicleType) row[0]).ordinal()] = (Long) row[1];
+        }
+        synchronized (this) {
+            for (int i = 0; i < TYPES.length; i++) open.set(i, counted[i] + applied[i] - before[i]);
+        }
+    }
+
+    // fallbackExecution: also changes replayed from other nodes (see ClusterCoordinator)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(TicketEvent event) {
+        switch (event.type()) {
+            case OPENED -> add(event.vehicleType(), 1);
+            case CLOSED -> add(event.vehicleType(), -1);
+        }
+    }
+
+    /**
+     * Adjusts the count for tickets that appeared without a {@link TicketEvent}, e.g. a bulk import.
+     */
+    synchronized void add(VehicleType type, long delta) {
+        open.addAndGet(type.ordinal(), delta);
+        applied[type.ordinal()] += delta;
+    }
+
+    public Map<VehicleType, Long> byVehicleType() {
+        Map<VehicleType, Long> counts = new EnumMap<>(VehicleType.class);
+        for (VehicleType type : TYPES) counts.put(type, open.get(type.ordinal()));
+        return counts;
+    }
+
+    public long total() {
+        long total = 0;
+        for (int i = 0; i < TYPES.length; i++) total += open.get(i);
+        return total;
+    }
+}
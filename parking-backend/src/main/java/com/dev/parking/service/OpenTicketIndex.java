@@ -0,0 +1,143 @@
+package com.dev.parking.service;
+
+import com.dev.parking.entity.Ticket;
+import com.dev.parking.entity.TicketStatus;
+import com.dev.parking.repository.TicketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory map of OPEN tickets keyed by normalized plate, so gate decisions do not need a
+ * case-insensitive lookup in the database.
+ *
+ * <p>Warmed from the database before the web server accepts requests, then kept in step by
+ * {@link TicketService}: a new entry holds a reservation until its transaction commits and only
+ * then gets its ticket id, so an exit never claims a ticket it cannot read yet; exits take the
+ * ticket out right away and put it back if they roll back. All updates are single atomic map
+ * operations, so two gates racing on the same plate cannot both win.
+ *
+ * <p>On a clustered node the index only follows the database (changes from other nodes arrive
+ * through {@link ClusterCoordinator}), and {@link TicketService} decides on the database instead.
+ */
+@Component
+public class OpenTicketIndex implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(OpenTicketIndex.class);
+
+    // placeholder while an entry is being inserted and its id is not known yet
+    private static final long RESERVED = -1L;
+
+    private final ConcurrentHashMap<String, Long> openByPlate = new ConcurrentHashMap<>();
+    private final TicketRepository ticketRepository;
+
+    public OpenTicketIndex(TicketRepository ticketRepository) {
+        this.ticketRepository = ticketRepository;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        openByPlate.putAll(readOpen());
+        log.info("Open-ticket index warmed with {} plate(s)", openByPlate.size());
+    }
+
+    /**
+     * Brings the index in line with the database after changes that published no events, e.g.
+     * an import on another node. Plates changed here while the database was read, and in-flight
+     * reservations, are left as they are.
+     */
+    public void reload() {
+        Map<String, Long> before = new HashMap<>(openByPlate);
+        Map<String, Long> fresh = readOpen();
+
+        Set<String> plates = new HashSet<>(before.keySet());
+        plates.addAll(fresh.keySet());
+        for (String plate : plates) {
+            Long was = before.get(plate);
+            Long now = fresh.get(plate);
+            if (Objects.equals(was, now) || (was != null && was == RESERVED)) continue;
+            if (was == null) openByPlate.putIfAbsent(plate, now);
+            else if (now == null) openByPlate.remove(plate, was);
+            else openByPlate.replace(plate, was, now);
+        }
+    }
+
+    /**
+     * Claims the plate for a new entry. Returns false if it already has an OPEN (or in-flight) ticket.
+     */
+    public boolean reserve(String plate) {
+        return openByPlate.putIfAbsent(plate, RESERVED) == null;
+    }
+
+    /**
+     * Replaces the plate's reservation with the id of the entry that made it, once it committed.
+     */
+    public void bind(String plate, long ticketId) {
+        openByPlate.put(plate, ticketId);
+    }
+
+    /**
+     * Id of the OPEN ticket for the plate, or null if there is none (or its entry is still in flight).
+     */
+    public Long openTicketId(String plate) {
+        Long id = openByPlate.get(plate);
+        return id == null || id == RESERVED ? null : id;
+    }
+
+    public boolean isOpen(String plate) {
+        return openByPlate.containsKey(plate);
+    }
+
+    /**
+     * Takes the plate's ticket out of the index for an exit. Only one caller can claim a given ticket.
+     */
+    public boolean claim(String plate, long ticketId) {
+        return openByPlate.remove(plate, ticketId);
+    }
+
+    /**
+     * Puts back a ticket whose exit did not commit.
+     */
+    public void restore(String plate, long ticketId) {
+        openByPlate.putIfAbsent(plate, ticketId);
+    }
+
+    /**
+     * Drops the plate's entry after an entry transaction did not commit.
+     */
+    public void discard(String plate) {
+        openByPlate.remove(plate);
+    }
+
+    /**
+     * Applies a change committed on another node.
+     */
+    public void apply(TicketEvent event) {
+        switch (event.type()) {
+            case OPENED -> openByPlate.put(event.plate(), event.ticketId());
+            case CLOSED -> openByPlate.remove(event.plate(), event.ticketId());
+        }
+    }
+
+    public int size() {
+        return openByPlate.size();
+    }
+
+    // oldest first, so if legacy data has duplicates the newest OPEN ticket wins
+    private Map<String, Long> readOpen() {
+        Map<String, Long> open = new HashMap<>();
+        for (Ticket t : ticketRepository.findByStatus(TicketStatus.OPEN, Sort.by("entryTime"))) {
+            open.put(TicketService.normalizePlate(t.getPlate()), t.getId());
+        }
+        return open;
+    }
+}
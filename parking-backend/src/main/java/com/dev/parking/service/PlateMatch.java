@@ -0,0 +1,10 @@
+package com.dev.parking.service;
+
+/**
+ * How the History {@code plate} filter is applied.
+ */
+public enum PlateMatch {
+    EXACT,
+    PREFIX,
+    CONTAINS
+}
@@ -0,0 +1,114 @@
+package com.dev.parking.service;
+
+import com.dev.parking.entity.Ticket;
+import com.dev.parking.repository.TicketRepository;
+import com.dev.parking.repository.TicketSpecifications;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Turns the History plate filter into an index-friendly predicate.
+ *
+ * <p>Exact and prefix matches go straight to the indexed normalized plate column
+ * ({@code =} / {@code LIKE 'x%'}).
+ * Substring matches are resolved in memory first: every distinct plate is indexed by its
+ * trigrams, the shortest of the query's trigram posting lists is filtered with
+ * {@code String.contains}, and the database only sees {@code plate IN (...)} over the
+ * surviving plates.
+ */
+@Component
+public class PlateSearchIndex implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(PlateSearchIndex.class);
+
+    private final TicketRepository ticketRepository;
+    private final int maxCandidates;
+
+    private final ConcurrentSkipListSet<String> plates = new ConcurrentSkipListSet<>();
+    private final ConcurrentHashMap<Long, Set<String>> byTrigram = new ConcurrentHashMap<>();
+
+    public PlateSearchIndex(TicketRepository ticketRepository,
+                            @Value("${parking.plate-search.max-candidates:1000}") int maxCandidates) {
+        this.ticketRepository = ticketRepository;
+        this.maxCandidates = maxCandidates;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        reload();
+    }
+
+    /**
+     * Adds every plate in the database; plates already known stay.
+     */
+    public void reload() {
+        ticketRepository.findDistinctPlates().forEach(this::add);
+        log.info("Plate search index warmed with {} distinct plate(s), {} trigram(s)", plates.size(), byTrigram.size());
+    }
+
+    /**
+     * Registers a plate. Safe to call before the ticket commits: a plate that never lands in
+     * the table only costs an extra IN-list entry.
+     */
+    public void add(String plate) {
+        String p = TicketService.normalizePlate(plate);
+        if (!plates.add(p)) return;
+        for (int i = 0; i + 3 <= p.length(); i++) {
+            byTrigram.computeIfAbsent(trigram(p, i), k -> ConcurrentHashMap.newKeySet()).add(p);
+        }
+    }
+
+    public Specification<Ticket> matching(String plate, PlateMatch match) {
+        if (plate == null || plate.isBlank()) return (root, query, cb) -> cb.conjunction();
+        String q = TicketService.normalizePlate(plate);
+
+        return switch (match == null ? PlateMatch.CONTAINS : match) {
+            case EXACT -> TicketSpecifications.plateEquals(q);
+            case PREFIX -> TicketSpecifications.plateStartsWith(q);
+            case CONTAINS -> {
+                List<String> candidates = containing(q);
+                // too unselective for an IN list; a scan is cheaper than shipping thousands of values
+                yield candidates == null ? TicketSpecifications.plateContains(q) : TicketSpecifications.plateIn(candidates);
+            }
+        };
+    }
+
+    /**
+     * Known plates containing {@code q}, or null if there are more than {@code maxCandidates}.
+     */
+    List<String> containing(String q) {
+        Iterable<String> pool = plates;
+        if (q.length() >= 3) {
+            List<Set<String>> postings = new ArrayList<>(q.length() - 2);
+            for (int i = 0; i + 3 <= q.length(); i++) {
+                Set<String> posting = byTrigram.get(trigram(q, i));
+                if (posting == null) return List.of();
+                postings.add(posting);
+            }
+            pool = postings.stream().min(Comparator.comparingInt(Set::size)).orElseThrow();
+        }
+
+        List<String> matches = new ArrayList<>();
+        for (String p : pool) {
+            if (!p.contains(q)) continue;
+            if (matches.size() == maxCandidates) return null;
+            matches.add(p);
+        }
+        return matches;
+    }
+
+    private static long trigram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+}
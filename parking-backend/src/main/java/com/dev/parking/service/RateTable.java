@@ -0,0 +1,80 @@
+package com.dev.parking.service;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * One vehicle type's tariff compiled into a cumulative table: {@code cumulative[m]} is what the
+ * first {@code m} minutes of a day cost, in cent-minutes per hour (cents x 60), so the cost of
+ * any stay is a handful of array reads however long it is.
+ */
+final class RateTable {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final long[] cumulative = new long[MINUTES_PER_DAY + 1];
+    private final long dayCap;      // same units as cumulative
+    private final long fullDay;     // one whole day, capped
+
+    private RateTable(int[] centsPerHourByMinute, long dailyCapCents) {
+        for (int m = 0; m < MINUTES_PER_DAY; m++) {
+            cumulative[m + 1] = cumulative[m] + centsPerHourByMinute[m];
+        }
+        this.dayCap = dailyCapCents > 0 ? dailyCapCents * 60 : Long.MAX_VALUE;
+        this.fullDay = Math.min(cumulative[MINUTES_PER_DAY], dayCap);
+    }
+
+    /**
+     * Compiles bands of the form {@code HH:mm-HH:mm=centsPerHour}; {@code 24:00} ends a day.
+     * Later bands override earlier ones where they overlap.
+     */
+    static RateTable compile(List<String> bands, long dailyCapCents) {
+        int[] rate = new int[MINUTES_PER_DAY];
+        for (String band : bands) {
+            String[] rangeAndRate = band.trim().split("=");
+            String[] range = rangeAndRate.length == 2 ? rangeAndRate[0].split("-") : new String[0];
+            if (range.length != 2) {
+                throw new IllegalArgumentException("Tariff band must look like 07:00-19:00=300: " + band);
+            }
+            int from = minuteOf(range[0]);
+            int to = minuteOf(range[1]);
+            int centsPerHour = Integer.parseInt(rangeAndRate[1].trim());
+            if (to <= from) {
+                throw new IllegalArgumentException("Tariff band must end after it starts: " + band);
+            }
+            for (int m = from; m < to; m++) rate[m] = centsPerHour;
+        }
+        return new RateTable(rate, dailyCapCents);
+    }
+
+    /**
+     * Fee in cents. The entry minute is charged from its start and the exit minute in full.
+     */
+    long priceCents(LocalDateTime entry, LocalDateTime exit) {
+        if (!exit.isAfter(entry)) return 0;
+
+        long days = ChronoUnit.DAYS.between(entry.toLocalDate(), exit.toLocalDate());
+        int startMinute = entry.getHour() * 60 + entry.getMinute();
+        int endMinute = exit.getHour() * 60 + exit.getMinute()
+                + (exit.getSecond() > 0 || exit.getNano() > 0 ? 1 : 0);
+
+        long units;
+        if (days == 0) {
+            units = Math.min(cumulative[endMinute] - cumulative[startMinute], dayCap);
+        } else {
+            units = Math.min(cumulative[MINUTES_PER_DAY] - cumulative[startMinute], dayCap)
+                    + (days - 1) * fullDay
+                    + Math.min(cumulative[endMinute], dayCap);
+        }
+        return Math.ceilDiv(units, 60);
+    }
+
+    private static int minuteOf(String hhmm) {
+        String s = hhmm.trim();
+        if (s.equals("24:00")) return MINUTES_PER_DAY;
+        LocalTime t = LocalTime.parse(s);
+        return t.getHour() * 60 + t.getMinute();
+    }
+}
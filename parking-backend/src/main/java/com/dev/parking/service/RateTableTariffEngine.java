@@ -0,0 +1,33 @@
+package com.dev.parking.service;
+
+import com.dev.parking.entity.VehicleType;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * {@link TariffEngine} over rate tables compiled once from {@link TariffProperties}. Pricing is
+ * constant time and allocates only the returned BigDecimal.
+ */
+@Component
+public class RateTableTariffEngine implements TariffEngine {
+
+    private static final RateTable FREE = RateTable.compile(List.of(), 0);
+
+    private final RateTable[] tables = new RateTable[VehicleType.values().length];
+
+    public RateTableTariffEngine(TariffProperties properties) {
+        for (VehicleType type : VehicleType.values()) {
+            TariffProperties.Rule rule = properties.rates().get(type);
+            tables[type.ordinal()] = rule == null ? FREE : RateTable.compile(rule.bands(), rule.dailyCap());
+        }
+    }
+
+    @Override
+    public BigDecimal price(VehicleType type, LocalDateTime entry, LocalDateTime exit) {
+        if (entry == null || exit == null) return BigDecimal.ZERO.setScale(2);
+        return BigDecimal.valueOf(tables[type.ordinal()].priceCents(entry, exit), 2);
+    }
+}
@@ -0,0 +1,51 @@
+package com.dev.parking.service;
+
+import java.util.function.Supplier;
+
+/**
+ * The newest change that reads on the current thread must see. A read replica is only used for
+ * them once it has caught up past that point (see {@code ReplicaRoutingDataSource}). Times are
+ * epoch millis on this node's clock, as recorded by {@link RecentTicketChanges}; 0 means any
+ * replica within {@code parking.replica.max-lag} will do.
+ */
+public final class ReadConsistency {
+
+    private static final ThreadLocal<Long> AS_OF = new ThreadLocal<>();
+
+    private ReadConsistency() {
+    }
+
+    public static long required() {
+        Long asOf = AS_OF.get();
+        return asOf == null ? 0 : asOf;
+    }
+
+    /**
+     * Runs {@code reads} requiring changes up to {@code asOf}, or a later point already required here.
+     */
+    public static <T> T asOf(long asOf, Supplier<T> reads) {
+        Long outer = AS_OF.get();
+        AS_OF.set(Math.max(asOf, required()));
+        try {
+            return reads.get();
+        } finally {
+            if (outer == null) AS_OF.remove();
+            else AS_OF.set(outer);
+        }
+    }
+
+    public static void asOf(long asOf, Runnable reads) {
+        asOf(asOf, () -> {
+            reads.run();
+            return null;
+        });
+    }
+
+    /**
+     * {@code reads} carrying the current requirement to whichever thread runs them.
+     */
+    public static <T> Supplier<T> carried(Supplier<T> reads) {
+        long asOf = required();
+        return () -> asOf(asOf, reads);
+    }
+}
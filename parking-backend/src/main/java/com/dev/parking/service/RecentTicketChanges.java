@@ -0,0 +1,57 @@
+package com.dev.parking.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Committed ticket changes of the last {@code parking.replica.max-lag}, with the time this node
+ * learned of them. A replica that is caught up to less than that window can only be missing
+ * these, so a History read that none of them affects can use it, while one that a just-closed
+ * ticket affects goes to the primary (see {@link ReadConsistency}).
+ */
+@Component
+public class RecentTicketChanges {
+
+    private final long windowMillis;
+    private final ConcurrentLinkedDeque<Seen> recent = new ConcurrentLinkedDeque<>();
+
+    public RecentTicketChanges(@Value("${parking.replica.max-lag:2s}") Duration window) {
+        this.windowMillis = window.toMillis();
+    }
+
+    // fallbackExecution: changes replayed from other nodes count too. Runs before the other
+    // listeners, so a listing reloaded after HistoryQueryCache evicted it already finds the change
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(TicketEvent event) {
+        long now = System.currentTimeMillis();
+        recent.addLast(new Seen(event, now));
+        for (Seen oldest; (oldest = recent.peekFirst()) != null && now - oldest.at() > windowMillis; ) {
+            recent.removeFirstOccurrence(oldest);
+        }
+    }
+
+    /**
+     * When this node learned of the newest recent change that could appear in {@code query}'s
+     * results, or 0 if there is none.
+     */
+    public long lastAffecting(HistoryQuery query) {
+        long cutoff = System.currentTimeMillis() - windowMillis;
+        for (Iterator<Seen> it = recent.descendingIterator(); it.hasNext(); ) {
+            Seen s = it.next();
+            if (s.at() < cutoff) break;
+            if (query.affectedBy(s.event())) return s.at();
+        }
+        return 0;
+    }
+
+    private record Seen(TicketEvent event, long at) {
+    }
+}
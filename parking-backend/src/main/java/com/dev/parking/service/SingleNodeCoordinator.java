@@ -0,0 +1,36 @@
+package com.dev.parking.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * The only node: the in-memory state is authoritative and there is nobody to coordinate with.
+ */
+@Component
+@ConditionalOnProperty(name = "parking.cluster.enabled", havingValue = "false", matchIfMissing = true)
+public class SingleNodeCoordinator implements ClusterCoordinator {
+
+    @Override
+    public boolean isClustered() {
+        return false;
+    }
+
+    @Override
+    public String nodeId() {
+        return "local";
+    }
+
+    @Override
+    public void lockPlate(String plate) {
+    }
+
+    @Override
+    public boolean runExclusive(String name, Runnable job) {
+        job.run();
+        return true;
+    }
+
+    @Override
+    public void resyncOthers() {
+    }
+}
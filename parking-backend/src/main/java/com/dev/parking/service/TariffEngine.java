@@ -0,0 +1,18 @@
+package com.dev.parking.service;
+
+import com.dev.parking.entity.VehicleType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Prices a stay. The default is {@link RateTableTariffEngine}; declare another bean of this type
+ * to replace it.
+ */
+public interface TariffEngine {
+
+    /**
+     * Fee for a stay from {@code entry} to {@code exit}, with scale 2. Zero if exit is not after entry.
+     */
+    BigDecimal price(VehicleType type, LocalDateTime entry, LocalDateTime exit);
+}
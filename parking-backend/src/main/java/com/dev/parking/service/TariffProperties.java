@@ -0,0 +1,33 @@
+package com.dev.parking.service;
+
+import com.dev.parking.entity.VehicleType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tariff rules per vehicle type, e.g.
+ *
+ * <pre>
+ * parking.tariff.rates.CAR.bands=00:00-07:00=100,07:00-19:00=300,19:00-24:00=150
+ * parking.tariff.rates.CAR.daily-cap=2500
+ * </pre>
+ *
+ * Band rates are cents per hour, charged per started minute. Uncovered minutes are free.
+ * {@code daily-cap} is in cents per calendar day; 0 means no cap.
+ */
+@ConfigurationProperties("parking.tariff")
+public record TariffProperties(Map<VehicleType, Rule> rates) {
+
+    public TariffProperties {
+        rates = rates == null ? Map.of() : rates;
+    }
+
+    public record Rule(List<String> bands, long dailyCap) {
+
+        public Rule {
+            bands = bands == null ? List.of() : bands;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.dev.parking.service;
+
+import com.dev.parking.entity.VehicleType;
+import com.dev.parking.repository.HourlyStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Recomputes {@code amount} of CLOSED tickets with the current {@link TariffEngine}, e.g. after a
+ * tariff change. The id range is cut into chunks that are read, priced and batch-updated in
+ * parallel, each in its own transaction, so a run over millions of rows never holds a long
+ * transaction or more than one chunk in memory per worker. Archived tickets are re-priced
+ * the same way after the hot table.
+ *
+ * <p>Only exits before the current hour are re-priced; their hourly revenue buckets no longer
+ * receive live exits and are rebuilt once all chunks are done.
+ *
+ * <p>A run holds the {@link TicketArchiver}'s cluster lock, so no node moves rows between the two
+ * tables while amounts are rewritten. It waits for an archival pass on another node to finish.
+ */
+@Component
+public class TariffRepricer {
+
+    private static final Logger log = LoggerFactory.getLogger(TariffRepricer.class);
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final TariffEngine tariff;
+    private final HourlyStatsRepository hourlyStats;
+    private final HistoryQueryCache historyCache;
+    private final TicketEventBroadcaster broadcaster;
+    private final ClusterCoordinator cluster;
+    private final int parallelism;
+    private final int chunkSize;
+
+    private static final List<String> TABLES = List.of("tickets", "tickets_archive");
+    private static final Duration LOCK_RETRY = Duration.ofSeconds(1);
+
+    private final AtomicReference<Job> current = new AtomicReference<>();
+
+    public TariffRepricer(JdbcTemplate jdbc, PlatformTransactionManager transactionManager, TariffEngine tariff,
+                          HourlyStatsRepository hourlyStats, HistoryQueryCache historyCache,
+                          TicketEventBroadcaster broadcaster, ClusterCoordinator cluster,
+                          @Value("${parking.tariff.reprice.parallelism:4}") int parallelism,
+                          @Value("${parking.tariff.reprice.chunk-size:5000}") int chunkSize) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tariff = tariff;
+        this.hourlyStats = hourlyStats;
+        this.historyCache = historyCache;
+        this.broadcaster = broadcaster;
+        this.cluster = cluster;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Starts re-pricing tickets that exited in {@code [from, to)}; either bound may be null.
+     * Fails with 409 while another run is in progress.
+     */
+    public Status start(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime lastHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime start = (from == null ? LocalDateTime.of(1970, 1, 1, 0, 0) : from).truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime end = to == null || to.isAfter(lastHour) ? lastHour : to.truncatedTo(ChronoUnit.HOURS);
+
+        Job job = new Job(start, end);
+        Job running = current.get();
+        if ((running != null && !running.done.isDone()) || !current.compareAndSet(running, job)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A re-pricing run is already in progress");
+        }
+        Thread.ofPlatform().name("tariff-reprice").daemon().start(() -> runExclusive(job));
+        return job.status();
+    }
+
+    /**
+     * Progress of the current or last run, or null if none has been started.
+     */
+    public Status status() {
+        Job job = current.get();
+        return job == null ? null : job.status();
+    }
+
+    /**
+     * Whether a run is in progress on this node; {@link TicketArchiver} waits for it to finish.
+     */
+    public boolean isRunning() {
+        Job job = current.get();
+        return job != null && !job.done.isDone();
+    }
+
+    private void runExclusive(Job job) {
+        try {
+            while (!cluster.runExclusive(TicketArchiver.LOCK, () -> run(job))) {
+                Thread.sleep(LOCK_RETRY);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(job, e);
+        } catch (RuntimeException e) {
+            log.error("Re-pricing could not take the archiver lock", e);
+            fail(job, e);
+        }
+    }
+
+    private void run(Job job) {
+        try (ExecutorService workers = Executors.newFixedThreadPool(parallelism)) {
+            for (String table : TABLES) {
+                Long minId = jdbc.queryForObject("SELECT MIN(id) FROM " + table, Long.class);
+                Long maxId = jdbc.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+                if (minId == null) continue;
+                List<CompletableFuture<Void>> chunks = new ArrayList<>();
+                for (long lo = minId; lo <= maxId; lo += chunkSize) {
+                    long chunkLo = lo;
+                    long chunkHi = Math.min(maxId, lo + chunkSize - 1);
+                    chunks.add(CompletableFuture.runAsync(() -> tx.executeWithoutResult(s -> repriceChunk(job, table, chunkLo, chunkHi)), workers));
+                }
+                CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).join();
+            }
+            hourlyStats.rebuildRevenue(job.from, job.to);
+            historyCache.invalidateAll();
+            broadcaster.resync();
+            cluster.resyncOthers();
+            job.finishedAt = Instant.now();
+            job.done.complete(null);
+            log.info("Re-priced {} ticket(s) in {}", job.updated.get(), Duration.between(job.startedAt, Instant.now()));
+        } catch (RuntimeException e) {
+            // chunks that did commit changed amounts under cached listings
+            historyCache.invalidateAll();
+            broadcaster.resync();
+            cluster.resyncOthers();
+            log.error("Re-pricing failed after {} ticket(s)", job.updated.get(), e);
+            fail(job, e);
+        }
+    }
+
+    private static void fail(Job job, Exception e) {
+        job.finishedAt = Instant.now();
+        job.done.completeExceptionally(e);
+    }
+
+    private void repriceChunk(Job job, String table, long lo, long hi) {
+        List<Object[]> updates = new ArrayList<>();
+        jdbc.query("SELECT id, vehicletype, entrytime, exittime FROM " + table + " "
+                        + "WHERE id BETWEEN ? AND ? AND status = 'CLOSED' AND exittime >= ? AND exittime < ?",
+                rs -> {
+                    Timestamp entry = rs.getTimestamp(3);
+                    Timestamp exit = rs.getTimestamp(4);
+                    BigDecimal amount = tariff.price(VehicleType.valueOf(rs.getString(2)),
+                            entry == null ? null : entry.toLocalDateTime(), exit.toLocalDateTime());
+                    updates.add(new Object[]{amount, rs.getLong(1)});
+                },
+                lo, hi, Timestamp.valueOf(job.from), Timestamp.valueOf(job.to));
+
+        if (!updates.isEmpty()) jdbc.batchUpdate("UPDATE " + table + " SET amount = ? WHERE id = ?", updates);
+        job.updated.addAndGet(updates.size());
+    }
+
+    private static final class Job {
+        final LocalDateTime from;
+        final LocalDateTime to;
+        final Instant startedAt = Instant.now();
+        final AtomicLong updated = new AtomicLong();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        volatile Instant finishedAt;
+
+        Job(LocalDateTime from, LocalDateTime to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        Status status() {
+            String state = !done.isDone() ? "RUNNING" : done.isCompletedExceptionally() ? "FAILED" : "DONE";
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            double seconds = Math.max(1, Duration.between(startedAt, end).toMillis()) / 1000.0;
+            return new Status(state, from, to, startedAt, updated.get(), Math.round(updated.get() / seconds));
+        }
+    }
+
+    public record Status(String state, LocalDateTime exitFrom, LocalDateTime exitTo, Instant startedAt,
+                         long repriced, long ticketsPerSecond) {
+    }
+}
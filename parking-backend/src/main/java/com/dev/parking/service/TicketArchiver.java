@@ -0,0 +1,128 @@
+package com.dev.parking.service;
+
+import com.dev.parking.repository.TicketArchiveRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Moves CLOSED tickets that exited more than {@code parking.archive.horizon} ago from tickets to
+ * the month-partitioned tickets_archive, so the hot table only holds OPEN and recent tickets.
+ *
+ * <p>Runs on a schedule in small id-ordered batches, one short transaction each, pausing
+ * between batches so gate traffic keeps the connection pool and row locks. Steps aside while a
+ * tariff re-pricing run is rewriting amounts; in a cluster the run holds this archiver's lock,
+ * so only one node archives or re-prices at a time.
+ */
+@Component
+public class TicketArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketArchiver.class);
+
+    // cluster lock name, also held by TariffRepricer runs
+    static final String LOCK = "archiver";
+
+    private final TicketArchiveRepository archive;
+    private final TransactionTemplate tx;
+    private final TariffRepricer repricer;
+    private final HistoryQueryCache historyCache;
+    private final ClusterCoordinator cluster;
+    private final boolean enabled;
+    private final Duration horizon;
+    private final int batchSize;
+    private final Duration pause;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    // latest month with its own partition; re-read at the start of every pass, since in a cluster
+    // the last one may have run on another node
+    private YearMonth partitionedThrough;
+
+    public TicketArchiver(TicketArchiveRepository archive, PlatformTransactionManager transactionManager,
+                          TariffRepricer repricer, HistoryQueryCache historyCache, ClusterCoordinator cluster,
+                          @Value("${parking.archive.enabled:true}") boolean enabled,
+                          @Value("${parking.archive.horizon:90d}") Duration horizon,
+                          @Value("${parking.archive.batch-size:2000}") int batchSize,
+                          @Value("${parking.archive.pause:200ms}") Duration pause) {
+        this.archive = archive;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.repricer = repricer;
+        this.historyCache = historyCache;
+        this.cluster = cluster;
+        this.enabled = enabled;
+        this.horizon = horizon;
+        this.batchSize = batchSize;
+        this.pause = pause;
+    }
+
+    @Scheduled(fixedDelayString = "${parking.archive.interval:10m}", initialDelayString = "${parking.archive.initial-delay:1m}")
+    public void scheduled() {
+        if (enabled) archiveNow();
+    }
+
+    /**
+     * Runs one archival pass unless one is already running, here or on another node; returns
+     * the number of tickets moved.
+     */
+    public int archiveNow() {
+        if (!running.compareAndSet(false, true)) return 0;
+        AtomicInteger moved = new AtomicInteger();
+        try {
+            cluster.runExclusive(LOCK, () -> moved.set(archivePass()));
+        } finally {
+            running.set(false);
+        }
+        return moved.get();
+    }
+
+    //helpers
+
+    private int archivePass() {
+        int moved = 0;
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minus(horizon);
+            partitionedThrough = archive.lastPartitionedMonth();
+            long afterId = 0;
+            while (!repricer.isRunning()) {
+                TicketArchiveRepository.Batch batch = archive.nextBatch(cutoff, afterId, batchSize);
+                if (batch == null) break;
+
+                ensurePartitions(YearMonth.from(batch.minEntry()), YearMonth.from(batch.maxEntry()));
+                long from = afterId;
+                moved += tx.execute(status -> archive.move(from, batch.lastId(), cutoff));
+                afterId = batch.lastId();
+
+                if (batch.count() < batchSize) break;
+                Thread.sleep(pause);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Archival stopped after {} ticket(s)", moved, e);
+        } finally {
+            if (moved > 0) {
+                historyCache.invalidateAll();
+                cluster.resyncOthers();
+                log.info("Archived {} ticket(s) closed before {} ago", moved, horizon);
+            }
+        }
+        return moved;
+    }
+
+    // monthly partitions are only ever added above the last one; older stragglers share the lowest
+    private void ensurePartitions(YearMonth min, YearMonth max) {
+        YearMonth start = partitionedThrough == null ? min : partitionedThrough.plusMonths(1);
+        if (start.isAfter(max)) return;
+        archive.addMonthlyPartitions(start, max);
+        partitionedThrough = max;
+    }
+}
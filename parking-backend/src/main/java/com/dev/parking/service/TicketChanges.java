@@ -0,0 +1,12 @@
+package com.dev.parking.service;
+
+import com.dev.parking.repository.TicketView;
+
+import java.util.List;
+
+/**
+ * Tickets changed since a sync mark. Pass {@code nextCursor} back as
+ * {@code since}; {@code more} means the next call will return more changes right away.
+ */
+public record TicketChanges(List<TicketView> items, String nextCursor, boolean more) {
+}
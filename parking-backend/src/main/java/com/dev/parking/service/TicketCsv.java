@@ -0,0 +1,81 @@
+package com.dev.parking.service;
+
+import com.dev.parking.repository.TicketView;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RFC 4180 CSV for tickets: a header line, then one row per ticket with ISO-8601 times and
+ * plain decimal amounts. Empty fields are nulls.
+ */
+final class TicketCsv {
+
+    static final List<String> COLUMNS = List.of("id", "plate", "vehicleType", "status", "entryTime", "exitTime", "amount");
+    static final String HEADER = String.join(",", COLUMNS);
+
+    private TicketCsv() {
+    }
+
+    static void write(Writer out, TicketView t) throws IOException {
+        out.write(t.id() == null ? "" : t.id().toString());
+        out.write(',');
+        writeText(out, t.plate());
+        out.write(',');
+        out.write(t.vehicleType() == null ? "" : t.vehicleType().name());
+        out.write(',');
+        out.write(t.status() == null ? "" : t.status().name());
+        out.write(',');
+        if (t.entryTime() != null) out.write(t.entryTime().toString());
+        out.write(',');
+        if (t.exitTime() != null) out.write(t.exitTime().toString());
+        out.write(',');
+        if (t.amount() != null) out.write(t.amount().toPlainString());
+        out.write("\r\n");
+    }
+
+    /**
+     * Splits one record into fields; empty fields come back as null. Quoted fields may
+     * contain commas and doubled quotes, but not line breaks.
+     */
+    static List<String> parse(String line) {
+        List<String> fields = new ArrayList<>(COLUMNS.size());
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.isEmpty() ? null : field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.isEmpty() ? null : field.toString());
+        return fields;
+    }
+
+    private static void writeText(Writer out, String s) throws IOException {
+        if (s == null) return;
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) {
+            out.write(s);
+            return;
+        }
+        out.write('"');
+        out.write(s.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
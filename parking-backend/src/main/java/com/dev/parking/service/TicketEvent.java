@@ -0,0 +1,28 @@
+package com.dev.parking.service;
+
+import com.dev.parking.entity.Ticket;
+import com.dev.parking.entity.TicketStatus;
+import com.dev.parking.entity.VehicleType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Published by {@link TicketService} when a ticket is opened or closed. It is a snapshot, so
+ * listeners can keep it after the transaction ends. Use {@code @TransactionalEventListener} to
+ * react only once the change is committed.
+ *
+ * <p>On a clustered node, changes committed by other nodes are published again outside any
+ * transaction (see {@link MySqlClusterCoordinator}); only listeners declared with
+ * {@code fallbackExecution = true} see those.
+ */
+public record TicketEvent(Type type, long ticketId, String plate, VehicleType vehicleType, TicketStatus status,
+                          LocalDateTime entryTime, LocalDateTime exitTime, BigDecimal amount) {
+
+    public enum Type { OPENED, CLOSED }
+
+    public static TicketEvent of(Type type, Ticket t) {
+        return new TicketEvent(type, t.getId(), t.getPlate(), t.getVehicleType(), t.getStatus(),
+                t.getEntryTime(), t.getExitTime(), t.getAmount());
+    }
+}
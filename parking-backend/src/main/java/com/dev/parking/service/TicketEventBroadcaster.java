@@ -0,0 +1,133 @@
+package com.dev.parking.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes committed {@link TicketEvent}s to Server-Sent Events subscribers. Each subscriber has
+ * its own filter, bounded queue and sender thread, so a slow client never delays a commit or
+ * the other subscribers; one that falls {@code parking.events.queue-capacity} events behind is
+ * disconnected and has to reload when it reconnects.
+ */
+@Component
+public class TicketEventBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketEventBroadcaster.class);
+
+    // queued by the heartbeat; compared by identity
+    private static final TicketEvent HEARTBEAT = new TicketEvent(null, 0, null, null, null, null, null, null);
+
+    private final int queueCapacity;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    public TicketEventBroadcaster(@Value("${parking.events.queue-capacity:256}") int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Opens a stream of events that can change the History listing for {@code filter}; an exit
+     * is sent to OPEN subscribers too, so they can drop the row.
+     */
+    public SseEmitter subscribe(HistoryQuery filter) {
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscriber s = new Subscriber(filter, emitter, new ArrayBlockingQueue<>(queueCapacity));
+        emitter.onCompletion(() -> remove(s));
+        emitter.onTimeout(() -> remove(s));
+        emitter.onError(e -> remove(s));
+
+        subscribers.add(s);
+        s.sender = Thread.ofVirtual().name("sse-subscriber").start(s::run);
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(TicketEvent event) {
+        for (Subscriber s : subscribers) {
+            if (!s.filter.affectedBy(event)) continue;
+            if (!s.queue.offer(event)) {
+                log.info("Dropping SSE subscriber {} events behind", queueCapacity);
+                s.emitter.complete();
+                remove(s);
+            }
+        }
+    }
+
+    // comment lines keep proxies from closing idle streams and surface dead clients
+    @Scheduled(fixedDelayString = "${parking.events.heartbeat:15s}")
+    public void heartbeat() {
+        for (Subscriber s : subscribers) {
+            s.queue.offer(HEARTBEAT);
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Ends every stream, for bulk changes that are not sent as single events (imports,
+     * re-pricing). Clients reload when they reconnect, as after any dropped stream.
+     */
+    public void resync() {
+        closeAll();
+    }
+
+    @PreDestroy
+    void closeAll() {
+        subscribers.forEach(s -> {
+            s.emitter.complete();
+            remove(s);
+        });
+    }
+
+    private void remove(Subscriber s) {
+        if (subscribers.remove(s) && s.sender != null) s.sender.interrupt();
+    }
+
+    private final class Subscriber {
+        final HistoryQuery filter;
+        final SseEmitter emitter;
+        final BlockingQueue<TicketEvent> queue;
+        volatile Thread sender;
+
+        Subscriber(HistoryQuery filter, SseEmitter emitter, BlockingQueue<TicketEvent> queue) {
+            this.filter = filter;
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+
+        void run() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    TicketEvent e = queue.take();
+                    if (e == HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .id(Long.toString(e.ticketId()))
+                                .name(e.type().name())
+                                .data(e));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException e) {
+                // client went away
+                remove(this);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
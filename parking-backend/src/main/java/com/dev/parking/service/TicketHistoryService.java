@@ -0,0 +1,276 @@
+package com.dev.parking.service;
+
+import com.dev.parking.entity.Ticket;
+import com.dev.parking.entity.TicketStatus;
+import com.dev.parking.entity.VehicleType;
+import com.dev.parking.repository.ArchivedTicket;
+import com.dev.parking.repository.ChangedTicket;
+import com.dev.parking.repository.TicketArchiveRepository;
+import com.dev.parking.repository.TicketRepository;
+import com.dev.parking.repository.TicketSpecifications;
+import com.dev.parking.repository.TicketView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.SequenceWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@Service
+public class TicketHistoryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final Set<String> KEYSET_FIELDS = Set.of("exitTime", "entryTime", "plate", "id");
+
+    // flush the first row right away, then in chunks, to keep first-byte latency low
+    private static final int FLUSH_EVERY = 500;
+
+    private final TicketRepository ticketRepository;
+    private final TicketArchiveRepository archive;
+    private final TimeBucketPlanner buckets;
+    private final ObjectMapper mapper;
+    private final Duration syncSettle;
+    private final Duration archiveHorizon;
+
+    public TicketHistoryService(TicketRepository ticketRepository, TicketArchiveRepository archive,
+                                TimeBucketPlanner buckets, ObjectMapper mapper,
+                                @Value("${parking.sync.settle:5s}") Duration syncSettle,
+                                @Value("${parking.archive.horizon:90d}") Duration archiveHorizon) {
+        this.ticketRepository = ticketRepository;
+        this.archive = archive;
+        this.buckets = buckets;
+        this.mapper = mapper;
+        this.syncSettle = syncSettle;
+        this.archiveHorizon = archiveHorizon;
+    }
+
+    /**
+     * Every ticket matching {@code filter}, as read-only {@link TicketView}s. Archived tickets
+     * are only included when an entry or exit range reaches back past the archive horizon, so an
+     * unbounded listing never loads the whole archive. {@code spec} is {@code filter} for the hot
+     * table, where wide ranges are queried in parallel time buckets (see {@link TimeBucketPlanner}).
+     */
+    public List<TicketView> list(HistoryQuery filter, Specification<Ticket> spec, Sort sort) {
+        List<TicketView> hot = buckets.find(spec, sort, filter.entry(), filter.exit(), Integer.MAX_VALUE);
+        if (!reachesPastHorizon(filter)) return hot;
+        return withArchived(hot, filter, null, TimeBucketPlanner.withIdTieBreak(sort), Integer.MAX_VALUE);
+    }
+
+    // not one transaction: each bucket query takes its own connection, and holding one here while
+    // waiting for them could drain the pool under load (see TimeBucketPlanner)
+    public TicketPage page(HistoryQuery filter, Specification<Ticket> spec, Sort sort, String cursorToken, Integer size) {
+        Sort.Order order = keysetOrder(sort);
+        int limit = pageSize(size);
+
+        HistoryCursor cursor = HistoryCursor.decode(cursorToken);
+        if (cursor != null && !cursor.field().equals(order.getProperty())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor does not match sort " + order.getProperty());
+        }
+
+        Specification<Ticket> pageSpec = spec.and(TicketSpecifications.after(cursor, order.isDescending()));
+        Sort keysetSort = Sort.by(order).and(Sort.by(order.getDirection(), "id"));
+
+        // one extra row tells us whether there is a next page without a count query
+        List<TicketView> rows = withArchived(buckets.find(pageSpec, keysetSort, filter.entry(), filter.exit(), limit + 1),
+                filter, cursor, keysetSort, limit + 1);
+        if (rows.size() <= limit) {
+            return new TicketPage(rows, null);
+        }
+
+        List<TicketView> items = rows.subList(0, limit);
+        TicketView last = items.get(limit - 1);
+        return new TicketPage(List.copyOf(items), cursorFor(order.getProperty(), last).encode());
+    }
+
+    /**
+     * Tickets changed after the mark in {@code since} (null on the first call, which returns
+     * everything), oldest change first, up to {@code size}. The mark is (updatedAt, id):
+     * updatedAt is set by the database on every write to the row, so entries, exits, imports
+     * with past times and re-priced amounts all show up, and ids, handed out in blocks per
+     * instance, need not follow commit order. Only changes older than {@code parking.sync.settle}
+     * by the database clock are returned, so a transaction that wrote its rows but has not
+     * committed yet is picked up on a later call instead of being skipped.
+     */
+    @Transactional(readOnly = true)
+    public TicketChanges changes(String since, Integer size) {
+        int limit = pageSize(size);
+        LocalDateTime bound = ticketRepository.databaseNow().minus(syncSettle);
+
+        HistoryCursor after = HistoryCursor.decode(since);
+        if (after != null && !"updatedAt".equals(after.field())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid since");
+        }
+
+        // one extra row tells us whether it is caught up
+        List<ChangedTicket> rows = ticketRepository.findChanges(after == null ? null : after.time(),
+                after == null ? 0 : after.id(), bound, limit + 1);
+        boolean more = rows.size() > limit;
+        HistoryCursor next = more
+                ? new HistoryCursor("updatedAt", rows.get(limit - 1).updatedAt().toString(), rows.get(limit - 1).id())
+                : caughtUp("updatedAt", bound);
+
+        List<TicketView> items = rows.stream().limit(limit).map(ChangedTicket::view).toList();
+        return new TicketChanges(items, next.encode(), more);
+    }
+
+    /**
+     * Writes every ticket matching {@code filter}, archived ones included, as one JSON object
+     * per line. Rows come off a streaming cursor as they are written, so memory use does not
+     * depend on the result size.
+     */
+    @Transactional(readOnly = true)
+    public void writeNdjson(HistoryQuery filter, Specification<Ticket> spec, Sort sort, OutputStream out) {
+        try (Stream<TicketView> rows = stream(filter, spec, sort)) {
+            writeNdjson(rows.iterator(), out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes archived tickets that entered in {@code [from, to)} as NDJSON, like {@link #writeNdjson}.
+     * Only the archive partitions for the months in the range are read.
+     */
+    @Transactional(readOnly = true)
+    public void writeArchiveNdjson(LocalDateTime from, LocalDateTime to, VehicleType type, String plate,
+                                   boolean descending, OutputStream out) {
+        String plateNorm = plate == null || plate.isBlank() ? null : TicketService.normalizePlate(plate);
+        try (Stream<ArchivedTicket> rows = archive.streamByEntryTime(from, to, type, plateNorm, descending)) {
+            writeNdjson(rows.iterator(), out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes every matching ticket as CSV (see {@link TicketCsv}) off the same streaming cursor
+     * as {@link #writeNdjson}, for exports that must not depend on the result size.
+     */
+    @Transactional(readOnly = true)
+    public void writeCsv(HistoryQuery filter, Specification<Ticket> spec, Sort sort, OutputStream out) {
+        try (Stream<TicketView> rows = stream(filter, spec, sort)) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            writer.write(TicketCsv.HEADER);
+            writer.write("\r\n");
+            Iterator<TicketView> it = rows.iterator();
+            while (it.hasNext()) {
+                TicketCsv.write(writer, it.next());
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //helpers
+
+    // flushed after the first row, so the client sees progress early, then every FLUSH_EVERY rows;
+    // an empty result is an empty body
+    private void writeNdjson(Iterator<?> rows, OutputStream out) throws IOException {
+        try (SequenceWriter writer = mapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+            int written = 0;
+            while (rows.hasNext()) {
+                writer.write(rows.next());
+                if (++written == 1 || written % FLUSH_EVERY == 0) writer.flush();
+            }
+            writer.flush();
+            if (written > 0) out.write('\n');
+        }
+    }
+
+    // the archive only holds CLOSED tickets
+    private static boolean reachesArchive(HistoryQuery filter) {
+        return filter.status() != TicketStatus.OPEN;
+    }
+
+    // archived tickets exited, and so entered, before the horizon; an unbounded window does not count
+    private boolean reachesPastHorizon(HistoryQuery filter) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(archiveHorizon);
+        return reachesBefore(filter.entry(), cutoff) || reachesBefore(filter.exit(), cutoff);
+    }
+
+    private static boolean reachesBefore(TimeWindow window, LocalDateTime time) {
+        return !window.isAll() && (window.from() == null || window.from().isBefore(time));
+    }
+
+    /**
+     * Merges archived tickets into {@code hot}, which is in {@code order} and was read first: a
+     * ticket archived in between is then in the archive, and one archived before both reads
+     * shows up twice, next to itself, and is kept once.
+     */
+    private List<TicketView> withArchived(List<TicketView> hot, HistoryQuery filter, HistoryCursor cursor,
+                                          Sort order, int limit) {
+        if (!reachesArchive(filter)) return hot;
+        List<TicketView> archived = archive.findViews(filter, cursor, order, limit);
+        if (archived.isEmpty()) return hot;
+
+        Comparator<TicketView> comparator = TimeBucketPlanner.comparator(order);
+        List<TicketView> out = new ArrayList<>();
+        int h = 0;
+        int a = 0;
+        while (out.size() < limit && (h < hot.size() || a < archived.size())) {
+            int c = h == hot.size() ? 1 : a == archived.size() ? -1 : comparator.compare(hot.get(h), archived.get(a));
+            if (c == 0) a++;
+            out.add(c <= 0 ? hot.get(h++) : archived.get(a++));
+        }
+        return out;
+    }
+
+    // archived tickets are read in the same statement (see TicketArchiveRepository.streamWithHot)
+    private Stream<TicketView> stream(HistoryQuery filter, Specification<Ticket> spec, Sort sort) {
+        return reachesArchive(filter)
+                ? archive.streamWithHot(filter, TimeBucketPlanner.withIdTieBreak(sort))
+                : ticketRepository.streamAll(spec, sort).map(TicketView::of);
+    }
+
+    private Sort.Order keysetOrder(Sort sort) {
+        Sort.Order order = sort.stream().findFirst().orElse(Sort.Order.desc("id"));
+        if (!KEYSET_FIELDS.contains(order.getProperty())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Paging supports sort by " + KEYSET_FIELDS + ", not " + order.getProperty());
+        }
+        return order;
+    }
+
+    private int pageSize(Integer size) {
+        if (size == null) return DEFAULT_PAGE_SIZE;
+        if (size < 1) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be positive");
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    // past every row with field <= bound
+    private static HistoryCursor caughtUp(String field, LocalDateTime bound) {
+        return new HistoryCursor(field, bound.toString(), Long.MAX_VALUE);
+    }
+
+    private HistoryCursor cursorFor(String field, TicketView t) {
+        Object value = switch (field) {
+            case "exitTime" -> t.exitTime();
+            case "entryTime" -> t.entryTime();
+            case "plate" -> t.plate();
+            default -> t.id();
+        };
+        return new HistoryCursor(field, value == null ? null : value.toString(), t.id());
+    }
+}
@@ -0,0 +1,341 @@
+package com.dev.parking.service;
+
+import com.dev.parking.entity.TicketStatus;
+import com.dev.parking.entity.VehicleType;
+import com.dev.parking.repository.HourlyStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Loads tickets from CSV (as written by {@code /api/tickets/export}) with multi-row INSERTs.
+ * The file is read once on the calling thread and cut into batches; a fixed pool of writers
+ * inserts them in parallel, each batch in its own transaction, with at most two batches per
+ * writer queued so memory stays constant whatever the file size.
+ *
+ * <p>Imported rows get fresh ids from tickets_seq, so exports from another site cannot collide.
+ * OPEN tickets are only imported for plates that are not already parked here; in clustered mode
+ * that is checked in the batch's transaction under the plate locks, as gate entries do. Batches commit
+ * independently: a failed import keeps what it had written and reports how far it got. Live
+ * History clients are told to reload once the import is over.
+ */
+@Component
+public class TicketImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketImporter.class);
+
+    // 7 placeholders per row; MySQL allows 65535 per statement
+    private static final int MAX_BATCH = 5000;
+
+    private static final String INSERT = "INSERT INTO tickets (id, plate, vehicletype, status, entrytime, exittime, amount) VALUES ";
+    private static final String VALUES = "(?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final OpenTicketIndex openTickets;
+    private final PlateSearchIndex plateSearch;
+    private final OccupancyCounters occupancy;
+    private final HourlyStatsRepository hourlyStats;
+    private final HistoryQueryCache historyCache;
+    private final TicketEventBroadcaster broadcaster;
+    private final ClusterCoordinator cluster;
+    private final int batchSize;
+    private final int writers;
+
+    public TicketImporter(JdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+                          OpenTicketIndex openTickets, PlateSearchIndex plateSearch, OccupancyCounters occupancy,
+                          HourlyStatsRepository hourlyStats, HistoryQueryCache historyCache,
+                          TicketEventBroadcaster broadcaster, ClusterCoordinator cluster,
+                          @Value("${parking.import.batch-size:1000}") int batchSize,
+                          @Value("${parking.import.writers:4}") int writers) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.openTickets = openTickets;
+        this.plateSearch = plateSearch;
+        this.occupancy = occupancy;
+        this.hourlyStats = hourlyStats;
+        this.historyCache = historyCache;
+        this.broadcaster = broadcaster;
+        this.cluster = cluster;
+        this.batchSize = Math.clamp(batchSize, 1, MAX_BATCH);
+        this.writers = writers;
+    }
+
+    /**
+     * Imports every row of {@code csv}; fails with 400 on the first malformed line.
+     */
+    public Result importCsv(InputStream csv) {
+        Instant start = Instant.now();
+        AtomicLong imported = new AtomicLong();
+        AtomicLong skipped = new AtomicLong();
+        Set<String> openPlates = new HashSet<>();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Semaphore queued = new Semaphore(writers * 2);
+
+        List<Row> batch = new ArrayList<>(batchSize);
+        try (ExecutorService pool = Executors.newFixedThreadPool(writers);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8), 64 * 1024)) {
+            Map<String, Integer> columns = header(reader.readLine());
+
+            int lineNo = 1;
+            for (String line; (line = reader.readLine()) != null && failure.get() == null; ) {
+                lineNo++;
+                if (line.isBlank()) continue;
+                Row row = parse(TicketCsv.parse(line), columns, lineNo);
+                if (row.status() == TicketStatus.OPEN && !claim(row.plate(), openPlates)) {
+                    skipped.incrementAndGet();
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    submit(pool, queued, batch, imported, skipped, failure);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty() && failure.get() == null) {
+                submit(pool, queued, batch, imported, skipped, failure);
+                batch = List.of();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            // rows read but never handed to a writer
+            release(batch);
+            if (imported.get() > 0) {
+                // imported rows are not published one by one; live clients reload instead
+                historyCache.invalidateAll();
+                broadcaster.resync();
+                cluster.resyncOthers();
+            }
+        }
+
+        if (failure.get() != null) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Import failed after " + imported.get() + " row(s)", failure.get());
+        }
+        Result result = Result.of(imported.get(), skipped.get(), Duration.between(start, Instant.now()));
+        log.info("Imported {} ticket(s), skipped {}, {} rows/s", result.imported(), result.skipped(), result.rowsPerSecond());
+        return result;
+    }
+
+    private void submit(ExecutorService pool, Semaphore queued, List<Row> batch, AtomicLong imported,
+                        AtomicLong skipped, AtomicReference<RuntimeException> failure) {
+        queued.acquireUninterruptibly();
+        long firstId;
+        try {
+            firstId = allocateIds(batch.size());
+        } catch (RuntimeException e) {
+            queued.release();
+            throw e;
+        }
+        pool.execute(() -> {
+            try {
+                int written = write(batch, firstId);
+                imported.addAndGet(written);
+                skipped.addAndGet(batch.size() - written);
+            } catch (RuntimeException e) {
+                release(batch);
+                failure.compareAndSet(null, e);
+                log.error("Import batch of {} row(s) failed", batch.size(), e);
+            } finally {
+                queued.release();
+            }
+        });
+    }
+
+    // a block of ids in its own short transaction, the way Hibernate's pooled-lo optimizer takes them
+    private long allocateIds(int n) {
+        return tx.execute(status -> {
+            jdbc.update("UPDATE tickets_seq SET next_val = LAST_INSERT_ID(next_val + ?)", n);
+            return jdbc.queryForObject("SELECT LAST_INSERT_ID()", Long.class) - n;
+        });
+    }
+
+    // returns how many rows were written; clustered, OPEN rows for plates parked meanwhile are dropped
+    private int write(List<Row> batch, long firstId) {
+        List<Row> rows = tx.execute(status -> {
+            List<Row> kept = cluster.isClustered() ? unparked(batch) : batch;
+            if (kept.isEmpty()) return kept;
+
+            Object[] args = new Object[kept.size() * 7];
+            int i = 0;
+            for (int n = 0; n < kept.size(); n++) {
+                Row r = kept.get(n);
+                args[i++] = firstId + n;
+                args[i++] = r.plate();
+                args[i++] = r.type().name();
+                args[i++] = r.status().name();
+                args[i++] = r.entryTime() == null ? null : Timestamp.valueOf(r.entryTime());
+                args[i++] = r.exitTime() == null ? null : Timestamp.valueOf(r.exitTime());
+                args[i++] = r.amount();
+            }
+            jdbc.update(INSERT + String.join(", ", Collections.nCopies(kept.size(), VALUES)), args);
+            hourlyStats.addAll(rollup(kept));
+            return kept;
+        });
+
+        for (int n = 0; n < rows.size(); n++) {
+            Row r = rows.get(n);
+            plateSearch.add(r.plate());
+            if (r.status() == TicketStatus.OPEN) {
+                openTickets.bind(r.plate(), firstId + n);
+                occupancy.add(r.type(), 1);
+            }
+        }
+        return rows.size();
+    }
+
+    /**
+     * Claims an OPEN row's plate like a gate entry would. Single node: reserved in the index and
+     * released again if the batch fails. Clustered: only once per file here; whether the plate is
+     * parked is decided by {@link #unparked} when the batch is written.
+     */
+    private boolean claim(String plate, Set<String> openPlates) {
+        return cluster.isClustered() ? openPlates.add(plate) : openTickets.reserve(plate);
+    }
+
+    // clustered: another node may have parked a plate since; checked under its lock, in plate order
+    // so that two imports locking the same plates cannot deadlock
+    private List<Row> unparked(List<Row> batch) {
+        Set<String> parked = new HashSet<>();
+        batch.stream()
+                .filter(r -> r.status() == TicketStatus.OPEN)
+                .map(Row::plate)
+                .sorted()
+                .forEach(plate -> {
+                    cluster.lockPlate(plate);
+                    if (lockedOpen(plate)) parked.add(plate);
+                });
+        if (parked.isEmpty()) return batch;
+        return batch.stream().filter(r -> r.status() != TicketStatus.OPEN || !parked.contains(r.plate())).toList();
+    }
+
+    // a locking read, so it also sees tickets other nodes committed after this transaction's snapshot
+    private boolean lockedOpen(String plate) {
+        return !jdbc.queryForList("SELECT id FROM tickets WHERE plate_norm = ? AND status = 'OPEN' FOR UPDATE",
+                Long.class, plate).isEmpty();
+    }
+
+    private void release(List<Row> rows) {
+        // clustered imports reserve nothing in the index
+        if (cluster.isClustered()) return;
+        for (Row r : rows) {
+            if (r.status() == TicketStatus.OPEN) openTickets.discard(r.plate());
+        }
+    }
+
+    //helpers
+
+    private static Map<String, Integer> header(String line) {
+        if (line == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Empty import");
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = TicketCsv.parse(line.startsWith("\uFEFF") ? line.substring(1) : line);
+        for (int i = 0; i < names.size(); i++) {
+            if (names.get(i) != null) columns.put(names.get(i).trim(), i);
+        }
+        for (String required : List.of("plate", "vehicleType", "status")) {
+            if (!columns.containsKey(required)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Missing column " + required + "; expected " + TicketCsv.HEADER);
+            }
+        }
+        return columns;
+    }
+
+    private static Row parse(List<String> fields, Map<String, Integer> columns, int lineNo) {
+        try {
+            String plate = TicketService.normalizePlate(required(fields, columns, "plate"));
+            if (plate.length() > 20) throw new IllegalArgumentException("plate longer than 20 characters");
+            VehicleType type = VehicleType.valueOf(required(fields, columns, "vehicleType").trim().toUpperCase(Locale.ROOT));
+            TicketStatus status = TicketStatus.valueOf(required(fields, columns, "status").trim().toUpperCase(Locale.ROOT));
+            String entry = field(fields, columns, "entryTime");
+            String exit = field(fields, columns, "exitTime");
+            String amount = field(fields, columns, "amount");
+            return new Row(plate, type, status,
+                    entry == null ? null : LocalDateTime.parse(entry.trim()),
+                    exit == null ? null : LocalDateTime.parse(exit.trim()),
+                    amount == null ? null : new BigDecimal(amount.trim()));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Line " + lineNo + ": " + e.getMessage());
+        } catch (ResponseStatusException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Line " + lineNo + ": " + e.getReason());
+        }
+    }
+
+    private static String required(List<String> fields, Map<String, Integer> columns, String name) {
+        String value = field(fields, columns, name);
+        if (value == null) throw new IllegalArgumentException(name + " is required");
+        return value;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer i = columns.get(name);
+        return i == null || i >= fields.size() ? null : fields.get(i);
+    }
+
+    // per-hour deltas for ticket_hourly_stats, as the live rollup would have recorded them
+    private static List<HourlyStats> rollup(List<Row> batch) {
+        Map<Bucket, long[]> buckets = new HashMap<>();
+        for (Row r : batch) {
+            if (r.entryTime() != null) {
+                buckets.computeIfAbsent(new Bucket(r.entryTime().truncatedTo(ChronoUnit.HOURS), r.type()), b -> new long[3])[0]++;
+            }
+            if (r.status() == TicketStatus.CLOSED && r.exitTime() != null) {
+                long[] b = buckets.computeIfAbsent(new Bucket(r.exitTime().truncatedTo(ChronoUnit.HOURS), r.type()), k -> new long[3]);
+                b[1]++;
+                if (r.amount() != null) b[2] += r.amount().movePointRight(2).longValue();
+            }
+        }
+        List<HourlyStats> stats = new ArrayList<>(buckets.size());
+        buckets.forEach((b, v) -> stats.add(new HourlyStats(b.hour(), b.type(), v[0], v[1], BigDecimal.valueOf(v[2], 2))));
+        return stats;
+    }
+
+    private record Bucket(LocalDateTime hour, VehicleType type) {
+    }
+
+    private record Row(String plate, VehicleType type, TicketStatus status, LocalDateTime entryTime,
+                       LocalDateTime exitTime, BigDecimal amount) {
+    }
+
+    public record Result(long imported, long skipped, double seconds, long rowsPerSecond) {
+
+        static Result of(long imported, long skipped, Duration elapsed) {
+            double seconds = Math.max(1, elapsed.toMillis()) / 1000.0;
+            return new Result(imported, skipped, seconds, Math.round(imported / seconds));
+        }
+    }
+}
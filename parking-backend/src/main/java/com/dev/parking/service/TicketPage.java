@@ -0,0 +1,11 @@
+package com.dev.parking.service;
+
+import com.dev.parking.repository.TicketView;
+
+import java.util.List;
+
+/**
+ * One keyset page of tickets. {@code nextCursor} is null on the last page.
+ */
+public record TicketPage(List<TicketView> items, String nextCursor) {
+}
@@ -5,31 +5,71 @@ import com.dev.parking.entity.Ticket;
 import com.dev.parking.entity.TicketStatus;
 import com.dev.parking.entity.VehicleType;
 import com.dev.parking.repository.TicketRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 @Service
 public class TicketService {
 
+    // transaction resource key for entries opened in the transaction, see openedHere()
+    private static final Object OPENED_HERE = new Object();
+
     private final TicketRepository ticketRepository;
+    private final OpenTicketIndex openTickets;
+    private final PlateSearchIndex plateSearch;
+    private final TariffEngine tariff;
+    private final ClusterCoordinator cluster;
+    private final ApplicationEventPublisher events;
+    private final MeterRegistry meters;
 
-    public TicketService(TicketRepository ticketRepository) {
+    public TicketService(TicketRepository ticketRepository, OpenTicketIndex openTickets,
+                         PlateSearchIndex plateSearch, TariffEngine tariff, ClusterCoordinator cluster,
+                         ApplicationEventPublisher events, MeterRegistry meters) {
         this.ticketRepository = ticketRepository;
+        this.openTickets = openTickets;
+        this.plateSearch = plateSearch;
+        this.tariff = tariff;
+        this.cluster = cluster;
+        this.events = events;
+        this.meters = meters;
     }
 
-    @Transactional
+    // a rejected gate event writes nothing, so it must not doom a batch it joins (see GateEventIngestor)
+    @Transactional(noRollbackFor = ResponseStatusException.class)
     public Ticket manualEntry(String plate, VehicleType type) {
+        return timed("entry", () -> entry(plate, type));
+    }
+
+    @Transactional(noRollbackFor = ResponseStatusException.class)
+    public Ticket manualExit(String plate) {
+        return timed("exit", () -> exit(plate));
+    }
+
+    private Ticket entry(String plate, VehicleType type) {
         String normalizedPlate = normalizePlate(plate);
 
-        boolean alreadyOpen = ticketRepository.existsByPlateIgnoreCaseAndStatus(normalizedPlate, TicketStatus.OPEN);
-        if (alreadyOpen) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                    "Ticket already OPEN for plate " + normalizedPlate);
+        if (cluster.isClustered()) {
+            // another node may have opened it a moment ago; its change may not have reached our index
+            cluster.lockPlate(normalizedPlate);
+            if (!lockedOpenTickets(normalizedPlate).isEmpty()) throw alreadyOpen(normalizedPlate);
+        } else if (!openTickets.reserve(normalizedPlate) && !exitedHere(normalizedPlate)) {
+            throw alreadyOpen(normalizedPlate);
         }
+        onRollback(() -> openTickets.discard(normalizedPlate));
 
         Ticket t = new Ticket();
         t.setPlate(normalizedPlate);
@@ -37,25 +77,145 @@ public class TicketService {
         t.setStatus(TicketStatus.OPEN);
         t.setEntryTime(LocalDateTime.now());
 
-        return ticketRepository.save(t);
+        Ticket saved = ticketRepository.save(t);
+        openedHere(true).put(normalizedPlate, saved.getId());
+        plateSearch.add(normalizedPlate);
+        events.publishEvent(TicketEvent.of(TicketEvent.Type.OPENED, saved));
+        return saved;
     }
 
-    @Transactional
-    public Ticket manualExit(String plate) {
+    private Ticket exit(String plate) {
         String normalizedPlate = normalizePlate(plate);
-
-        Ticket t = ticketRepository
-                .findFirstByPlateIgnoreCaseAndStatusOrderByEntryTimeDesc(normalizedPlate, TicketStatus.OPEN)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                        "No OPEN ticket found for plate " + normalizedPlate));
+        Ticket t = cluster.isClustered() ? claimLocked(normalizedPlate) : claimIndexed(normalizedPlate);
 
         t.setExitTime(LocalDateTime.now());
         t.setStatus(TicketStatus.CLOSED);
+        t.setAmount(tariff.price(t.getVehicleType(), t.getEntryTime(), t.getExitTime()));
+
+        Ticket saved = ticketRepository.save(t);
+        events.publishEvent(TicketEvent.of(TicketEvent.Type.CLOSED, saved));
+        return saved;
+    }
+
+    private Ticket claimIndexed(String plate) {
+        Long ownEntry = enteredHere(plate);
+        if (ownEntry != null) {
+            // opened earlier in this transaction (a gate batch), so not in the index yet
+            openedHere(true).put(plate, null);
+            return ticketRepository.findById(ownEntry).orElseThrow(() -> noOpenTicket(plate));
+        }
+
+        Long openId = openTickets.openTicketId(plate);
+        if (openId == null || !openTickets.claim(plate, openId)) {
+            throw noOpenTicket(plate);
+        }
+        onRollback(() -> openTickets.restore(plate, openId));
+
+        Optional<Ticket> found = ticketRepository.findById(openId);
+        if (found.isEmpty()) {
+            // committed after this transaction's read view was taken; the ticket is still open
+            openTickets.restore(plate, openId);
+            throw noOpenTicket(plate);
+        }
+        return found.filter(t -> t.getStatus() == TicketStatus.OPEN).orElseThrow(() -> noOpenTicket(plate));
+    }
+
+    // clustered: the ticket may have been opened on another node, so look it up under the plate lock
+    private Ticket claimLocked(String plate) {
+        cluster.lockPlate(plate);
+        List<Ticket> open = lockedOpenTickets(plate);
+        if (open.isEmpty()) throw noOpenTicket(plate);
+
+        Ticket t = open.getFirst();
+        if (enteredHere(plate) != null) {
+            openedHere(true).put(plate, null);
+        } else {
+            openTickets.claim(plate, t.getId());
+            onRollback(() -> openTickets.restore(plate, t.getId()));
+        }
+        return t;
+    }
+
+    private List<Ticket> lockedOpenTickets(String plate) {
+        return ticketRepository.findByPlateNormAndStatusOrderByEntryTimeDesc(plate, TicketStatus.OPEN);
+    }
+
+    // parking.gate{op, outcome}; runs inside the transaction, so commit time shows up in parking.sql{kind=commit}
+    private Ticket timed(String op, Supplier<Ticket> work) {
+        Timer.Sample sample = Timer.start(meters);
+        String outcome = "error";
+        try {
+            Ticket t = work.get();
+            outcome = "ok";
+            return t;
+        } catch (ResponseStatusException e) {
+            outcome = "rejected";
+            throw e;
+        } finally {
+            sample.stop(meters.timer("parking.gate", "op", op, "outcome", outcome));
+        }
+    }
+
+    static String normalizePlate(String plate) {
+        if (plate == null || plate.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Plate is required");
+        }
+        return plate.trim().toUpperCase();
+    }
+
+    private static ResponseStatusException alreadyOpen(String plate) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ticket already OPEN for plate " + plate);
+    }
+
+    private static ResponseStatusException noOpenTicket(String plate) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "No OPEN ticket found for plate " + plate);
+    }
+
+    /**
+     * Entries opened in the current transaction: plate to ticket id, or to null once exited again
+     * in the same transaction. The index only learns of them when the transaction commits, so an
+     * exit elsewhere can never claim a ticket its transaction cannot read yet; until then the plate
+     * stays reserved.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Long> openedHere(boolean create) {
+        Map<String, Long> opened = (Map<String, Long>) TransactionSynchronizationManager.getResource(OPENED_HERE);
+        if (opened != null || !create) return opened;
+
+        Map<String, Long> created = new HashMap<>();
+        TransactionSynchronizationManager.bindResource(OPENED_HERE, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResource(OPENED_HERE);
+                if (status != STATUS_COMMITTED) return;
+                created.forEach((plate, id) -> {
+                    if (id == null) openTickets.discard(plate);
+                    else openTickets.bind(plate, id);
+                });
+            }
+        });
+        return created;
+    }
+
+    private Long enteredHere(String plate) {
+        Map<String, Long> opened = openedHere(false);
+        return opened == null ? null : opened.get(plate);
+    }
 
-        return ticketRepository.save(t);
+    // the plate's reservation is this transaction's own, from an entry it has exited again
+    private boolean exitedHere(String plate) {
+        Map<String, Long> opened = openedHere(false);
+        return opened != null && opened.containsKey(plate) && opened.get(plate) == null;
     }
 
-    private String normalizePlate(String plate) {
-        return plate == null ? null : plate.trim().toUpperCase();
+    // undo an index change if the surrounding transaction does not commit
+    private static void onRollback(Runnable undo) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) undo.run();
+            }
+        });
     }
 }
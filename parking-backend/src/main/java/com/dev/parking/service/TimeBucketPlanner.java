@@ -0,0 +1,230 @@
+package com.dev.parking.service;
+
+import com.dev.parking.entity.Ticket;
+import com.dev.parking.repository.TicketRepository;
+import com.dev.parking.repository.TicketSpecifications;
+import com.dev.parking.repository.TicketView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs History queries with a wide entry- or exit-time range as several time buckets in
+ * parallel. Each bucket is a short range scan on its own connection, and the results are merged
+ * back into the requested order. Narrow or unbounded ranges run as one query.
+ *
+ * <p>Each call reads at most {@code parking.history.bucket-parallelism} buckets at a time, on
+ * threads of its own, so a wide range does not queue other requests behind its buckets. Callers
+ * must not hold a connection meanwhile (no surrounding transaction), or a burst of requests
+ * could take the whole pool and wait on each other.
+ *
+ * <p>When the sort is on the bucketed column, the buckets are already in order. They are read
+ * one wave at a time, and reading stops once the limit is reached. With any other sort every
+ * bucket is read (each up to the limit) and merged. An unsorted query is sorted by id.
+ */
+@Component
+public class TimeBucketPlanner {
+
+    // properties the merge can compare the way MySQL orders them
+    private static final Set<String> MERGEABLE = Set.of("id", "plate", "vehicleType", "status", "entryTime",
+            "exitTime", "amount");
+
+    private final TicketRepository repo;
+    private final Duration bucketSize;
+    private final int maxBuckets;
+    private final int parallelism;
+
+    public TimeBucketPlanner(TicketRepository repo,
+                             @Value("${parking.history.bucket-size:7d}") Duration bucketSize,
+                             @Value("${parking.history.max-buckets:16}") int maxBuckets,
+                             @Value("${parking.history.bucket-parallelism:4}") int parallelism) {
+        this.repo = repo;
+        this.bucketSize = bucketSize;
+        this.maxBuckets = Math.max(1, maxBuckets);
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Up to {@code limit} tickets matching {@code spec}, in {@code sort} order with id as the
+     * tie-break. {@code spec} must already apply {@code entry} and {@code exit}; they only
+     * decide how the query is split.
+     */
+    public List<TicketView> find(Specification<Ticket> spec, Sort sort, TimeWindow entry, TimeWindow exit, int limit) {
+        Sort ordered = withIdTieBreak(sort);
+        List<Bucket> buckets = buckets(entry, exit);
+        if (buckets.size() < 2 || !ordered.stream().allMatch(o -> MERGEABLE.contains(o.getProperty()))) {
+            return query(spec, ordered, limit);
+        }
+
+        Sort.Order first = ordered.iterator().next();
+        try (ExecutorService workers = workers(buckets.size())) {
+            if (first.getProperty().equals(buckets.getFirst().field())) {
+                return inBucketOrder(spec, ordered, first.isDescending() ? buckets.reversed() : buckets, limit, workers);
+            }
+            return merged(spec, ordered, buckets, limit, workers);
+        }
+    }
+
+    // buckets are already sorted relative to each other: concatenate, a wave at a time
+    private List<TicketView> inBucketOrder(Specification<Ticket> spec, Sort sort, List<Bucket> buckets, int limit,
+                                           ExecutorService workers) {
+        List<TicketView> out = new ArrayList<>();
+        for (int i = 0; i < buckets.size() && out.size() < limit; i += parallelism) {
+            int remaining = limit - out.size();
+            List<CompletableFuture<List<TicketView>>> wave = new ArrayList<>();
+            for (Bucket b : buckets.subList(i, Math.min(i + parallelism, buckets.size()))) {
+                wave.add(CompletableFuture.supplyAsync(
+                        ReadConsistency.carried(() -> query(spec.and(b.spec()), sort, remaining)), workers));
+            }
+            for (CompletableFuture<List<TicketView>> f : wave) {
+                out.addAll(join(f));
+            }
+        }
+        return out.size() > limit ? new ArrayList<>(out.subList(0, limit)) : out;
+    }
+
+    // k-way merge of the per-bucket results
+    private List<TicketView> merged(Specification<Ticket> spec, Sort sort, List<Bucket> buckets, int limit,
+                                    ExecutorService workers) {
+        List<CompletableFuture<List<TicketView>>> parts = new ArrayList<>();
+        for (Bucket b : buckets) {
+            parts.add(CompletableFuture.supplyAsync(ReadConsistency.carried(() -> query(spec.and(b.spec()), sort, limit)), workers));
+        }
+
+        Comparator<TicketView> order = comparator(sort);
+        PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> order.compare(a.head(), b.head()));
+        for (CompletableFuture<List<TicketView>> f : parts) {
+            List<TicketView> rows = join(f);
+            if (!rows.isEmpty()) heads.add(new Cursor(rows));
+        }
+
+        List<TicketView> out = new ArrayList<>();
+        while (!heads.isEmpty() && out.size() < limit) {
+            Cursor c = heads.poll();
+            out.add(c.head());
+            if (c.advance()) heads.add(c);
+        }
+        return out;
+    }
+
+    private List<TicketView> query(Specification<Ticket> spec, Sort sort, int limit) {
+        return repo.findViews(spec, sort, limit);
+    }
+
+    // the entry range is preferred; a range needs a lower bound to be split
+    private List<Bucket> buckets(TimeWindow entry, TimeWindow exit) {
+        String field;
+        TimeWindow window;
+        if (entry.from() != null) {
+            field = "entryTime";
+            window = entry;
+        } else if (exit.from() != null) {
+            field = "exitTime";
+            window = exit;
+        } else {
+            return List.of();
+        }
+
+        LocalDateTime end = window.to() != null ? window.to() : LocalDateTime.now();
+        if (!window.from().isBefore(end)) return List.of();
+
+        List<LocalDateTime> starts = TimeWindow.bucketStarts(window.from(), end, bucketSize, maxBuckets);
+        List<Bucket> buckets = new ArrayList<>(starts.size());
+        for (int i = 0; i < starts.size(); i++) {
+            // the last bucket is open-ended; the window itself still bounds it
+            LocalDateTime before = i + 1 < starts.size() ? starts.get(i + 1) : null;
+            buckets.add(new Bucket(field, starts.get(i), before));
+        }
+        return buckets;
+    }
+
+    //helpers
+
+    // this call's own bucket threads; closing it waits for any still running
+    private ExecutorService workers(int buckets) {
+        return Executors.newFixedThreadPool(Math.min(parallelism, buckets),
+                Thread.ofVirtual().name("history-bucket-", 0).factory());
+    }
+
+    // sort, then id in the sort's direction, so ties come back in the same order every time
+    static Sort withIdTieBreak(Sort sort) {
+        return sort.getOrderFor("id") != null ? sort : sort.and(Sort.by(direction(sort), "id"));
+    }
+
+    private static Sort.Direction direction(Sort sort) {
+        return sort.stream().findFirst().map(Sort.Order::getDirection).orElse(Sort.Direction.ASC);
+    }
+
+    private static <T> T join(CompletableFuture<T> f) {
+        try {
+            return f.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    // MySQL order: NULL sorts lowest, plates compare case-insensitively, enums by stored name
+    static Comparator<TicketView> comparator(Sort sort) {
+        Comparator<TicketView> result = (a, b) -> 0;
+        for (Sort.Order o : sort) {
+            Comparator<TicketView> next = Comparator.comparing(t -> key(t, o.getProperty()),
+                    Comparator.nullsFirst(Comparator.naturalOrder()));
+            result = result.thenComparing(o.isDescending() ? next.reversed() : next);
+        }
+        return result;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static Comparable<Object> key(TicketView t, String property) {
+        Comparable value = switch (property) {
+            case "id" -> t.id();
+            case "plate" -> t.plate() == null ? null : t.plate().toUpperCase(Locale.ROOT);
+            case "vehicleType" -> t.vehicleType() == null ? null : t.vehicleType().name();
+            case "status" -> t.status() == null ? null : t.status().name();
+            case "entryTime" -> t.entryTime();
+            case "exitTime" -> t.exitTime();
+            case "amount" -> t.amount();
+            default -> throw new IllegalArgumentException("Cannot merge on " + property);
+        };
+        return value;
+    }
+
+    private record Bucket(String field, LocalDateTime from, LocalDateTime before) {
+
+        Specification<Ticket> spec() {
+            return TicketSpecifications.timeBucket(field, from, before);
+        }
+    }
+
+    private static final class Cursor {
+        private final List<TicketView> rows;
+        private int next;
+
+        Cursor(List<TicketView> rows) {
+            this.rows = rows;
+        }
+
+        TicketView head() {
+            return rows.get(next);
+        }
+
+        boolean advance() {
+            return ++next < rows.size();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.dev.parking.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An entry- or exit-time filter, inclusive at both ends; either end may be open.
+ */
+public record TimeWindow(LocalDateTime from, LocalDateTime to) {
+
+    public static final TimeWindow ALL = new TimeWindow(null, null);
+
+    public static TimeWindow of(LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) return ALL;
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Time range starts after it ends: " + from + " > " + to);
+        }
+        return new TimeWindow(from, to);
+    }
+
+    public boolean isAll() {
+        return from == null && to == null;
+    }
+
+    /**
+     * Whether {@code time} passes this filter; a null time only passes an unbounded window,
+     * as in SQL.
+     */
+    public boolean contains(LocalDateTime time) {
+        if (isAll()) return true;
+        if (time == null) return false;
+        return (from == null || !time.isBefore(from)) && (to == null || !time.isAfter(to));
+    }
+
+    /**
+     * Splits {@code [from, end)} into consecutive buckets of {@code size}, widened so there are at
+     * most {@code maxBuckets}. Returns the bucket start times; the last bucket is open-ended.
+     */
+    static List<LocalDateTime> bucketStarts(LocalDateTime from, LocalDateTime end, Duration size, int maxBuckets) {
+        Duration span = Duration.between(from, end);
+        long count = Math.ceilDiv(span.toSeconds(), Math.max(1, size.toSeconds()));
+        Duration step = count > maxBuckets ? span.dividedBy(maxBuckets) : size;
+        List<LocalDateTime> starts = new ArrayList<>();
+        for (LocalDateTime t = from; t.isBefore(end) && starts.size() < maxBuckets; t = t.plus(step)) {
+            starts.add(t);
+        }
+        if (starts.isEmpty()) starts.add(from);
+        return starts;
+    }
+}
@@ -0,0 +1,22 @@
+-- Baseline schema as mapped by Ticket. Written to be a no-op on databases that already have it
+-- (see spring.flyway.baseline-on-migrate).
+
+CREATE TABLE IF NOT EXISTS tickets (
+    id          BIGINT         NOT NULL,
+    plate       VARCHAR(20)    NOT NULL,
+    vehicletype ENUM ('CAR', 'BIKE', 'TRUCK', 'OTHER') NOT NULL,
+    entrytime   DATETIME(6)    NULL,
+    exittime    DATETIME(6)    NULL,
+    status      ENUM ('OPEN', 'CLOSED') NOT NULL,
+    amount      DECIMAL(38, 2) NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- pooled-lo id source for Ticket (Hibernate's table emulation of a sequence)
+CREATE TABLE IF NOT EXISTS tickets_seq (
+    next_val BIGINT NOT NULL
+) ENGINE = InnoDB;
+
+INSERT INTO tickets_seq (next_val)
+SELECT COALESCE(MAX(id), 0) + 1 FROM tickets
+WHERE NOT EXISTS (SELECT 1 FROM tickets_seq);
@@ -0,0 +1,39 @@
+-- Normalized plate, covering indexes for the gate lookups and History sorts, and a
+-- one-OPEN-ticket-per-plate guard.
+--
+-- InnoDB appends the primary key to every secondary index, so (status, exittime) also
+-- serves the keyset order (status, exittime, id) used by /api/tickets/page.
+
+ALTER TABLE tickets
+    ADD COLUMN plate_norm VARCHAR(20) GENERATED ALWAYS AS (UPPER(TRIM(plate))) STORED AFTER plate;
+
+-- MySQL has no partial indexes: open_plate is the normalized plate while OPEN and NULL
+-- otherwise, and a UNIQUE index ignores NULLs.
+ALTER TABLE tickets
+    ADD COLUMN open_plate VARCHAR(20) GENERATED ALWAYS AS (IF(status = 'OPEN', plate_norm, NULL)) STORED AFTER status;
+
+-- Legacy data may hold several OPEN tickets for one plate; keep the newest one open.
+UPDATE tickets t
+    JOIN (SELECT plate_norm, MAX(id) AS keep_id
+          FROM tickets
+          WHERE status = 'OPEN'
+          GROUP BY plate_norm
+          HAVING COUNT(*) > 1) dup ON dup.plate_norm = t.plate_norm
+SET t.status   = 'CLOSED',
+    t.exittime = COALESCE(t.exittime, t.entrytime)
+WHERE t.status = 'OPEN'
+  AND t.id <> dup.keep_id;
+
+CREATE UNIQUE INDEX uq_tickets_open_plate ON tickets (open_plate);
+
+-- gate lookups (plate_norm = ? AND status = ? ORDER BY entrytime) and plate =/prefix/IN search
+CREATE INDEX idx_tickets_plate_norm_status ON tickets (plate_norm, status, entrytime);
+
+-- History: status filter + time sorts, and the same sorts with status = ALL
+CREATE INDEX idx_tickets_status_exit ON tickets (status, exittime);
+CREATE INDEX idx_tickets_status_entry ON tickets (status, entrytime);
+CREATE INDEX idx_tickets_exit ON tickets (exittime);
+CREATE INDEX idx_tickets_entry ON tickets (entrytime);
+
+-- History: plate sort
+CREATE INDEX idx_tickets_plate ON tickets (plate);
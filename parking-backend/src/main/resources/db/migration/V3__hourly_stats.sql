@@ -0,0 +1,26 @@
+-- Hourly rollup behind /api/stats. Maintained incrementally by the backend; this migration
+-- backfills it from existing tickets once.
+
+CREATE TABLE ticket_hourly_stats (
+    bucket_start DATETIME       NOT NULL,
+    vehicletype  ENUM ('CAR', 'BIKE', 'TRUCK', 'OTHER') NOT NULL,
+    entries      BIGINT         NOT NULL DEFAULT 0,
+    exits        BIGINT         NOT NULL DEFAULT 0,
+    revenue      DECIMAL(38, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (bucket_start, vehicletype)
+) ENGINE = InnoDB;
+
+INSERT INTO ticket_hourly_stats (bucket_start, vehicletype, entries)
+SELECT DATE_FORMAT(entrytime, '%Y-%m-%d %H:00:00'), vehicletype, COUNT(*)
+FROM tickets
+WHERE entrytime IS NOT NULL
+GROUP BY 1, 2;
+
+INSERT INTO ticket_hourly_stats (bucket_start, vehicletype, exits, revenue)
+SELECT DATE_FORMAT(exittime, '%Y-%m-%d %H:00:00'), vehicletype, COUNT(*), COALESCE(SUM(amount), 0)
+FROM tickets
+WHERE status = 'CLOSED'
+  AND exittime IS NOT NULL
+GROUP BY 1, 2
+ON DUPLICATE KEY UPDATE exits   = VALUES(exits),
+                        revenue = VALUES(revenue);
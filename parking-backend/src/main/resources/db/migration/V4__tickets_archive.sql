@@ -0,0 +1,25 @@
+-- Cold storage for CLOSED tickets past parking.archive.horizon, moved by TicketArchiver.
+--
+-- Range-partitioned by entry month so History queries over a date range only read the months
+-- they cover. The archiver splits p_future into monthly partitions as it needs them; rows before
+-- 2000 land in p_start. MySQL requires the partitioning column in every unique key, hence the
+-- (id, entrytime) primary key and NOT NULL entrytime (tickets without one stay in tickets).
+
+CREATE TABLE tickets_archive (
+    id          BIGINT         NOT NULL,
+    plate       VARCHAR(20)    NOT NULL,
+    plate_norm  VARCHAR(20)    GENERATED ALWAYS AS (UPPER(TRIM(plate))) STORED,
+    vehicletype ENUM ('CAR', 'BIKE', 'TRUCK', 'OTHER') NOT NULL,
+    entrytime   DATETIME(6)    NOT NULL,
+    exittime    DATETIME(6)    NULL,
+    status      ENUM ('OPEN', 'CLOSED') NOT NULL,
+    amount      DECIMAL(38, 2) NULL,
+    PRIMARY KEY (id, entrytime),
+    KEY idx_tickets_archive_entry (entrytime),
+    KEY idx_tickets_archive_plate_norm (plate_norm, entrytime),
+    KEY idx_tickets_archive_exit (exittime)
+) ENGINE = InnoDB
+    PARTITION BY RANGE COLUMNS (entrytime) (
+        PARTITION p_start VALUES LESS THAN ('2000-01-01'),
+        PARTITION p_future VALUES LESS THAN (MAXVALUE)
+        );
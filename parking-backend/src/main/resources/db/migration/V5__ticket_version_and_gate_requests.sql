@@ -0,0 +1,17 @@
+-- Optimistic locking for Ticket (@Version): a second writer to the same ticket, e.g. two
+-- instances closing it at once, fails instead of silently overwriting the first.
+ALTER TABLE tickets ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+-- Idempotency keys of gate entry/exit requests, written in the same transaction as the ticket
+-- change, so a retried request replays its ticket instead of running again. fingerprint is what
+-- the key was used for (op, normalized plate and, for entries, vehicle type), so a key reused for
+-- a different request is rejected. Rows older than parking.gate.idempotency-ttl are purged by
+-- GateIdempotency.
+CREATE TABLE gate_requests (
+    idem_key    VARCHAR(100) NOT NULL PRIMARY KEY,
+    op          VARCHAR(8)   NOT NULL,
+    fingerprint VARCHAR(64)  NOT NULL,
+    ticket_id   BIGINT       NOT NULL,
+    created_at  DATETIME(6)  NOT NULL,
+    INDEX idx_gate_requests_created (created_at)
+) ENGINE = InnoDB;
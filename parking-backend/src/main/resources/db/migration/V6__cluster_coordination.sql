@@ -0,0 +1,25 @@
+-- Clustered mode (parking.cluster.enabled): several backend nodes share one parking_db.
+
+-- One row per plate that ever went through a gate. A gate event locks its plate's row for the
+-- rest of its transaction, so entries and exits for one plate run one at a time across nodes.
+CREATE TABLE plate_locks (
+    plate VARCHAR(20) NOT NULL PRIMARY KEY
+) ENGINE = InnoDB;
+
+-- Committed ticket changes, written in the same transaction as the change and polled by the
+-- other nodes to keep their in-memory state current. RESYNC rows ask them to reload it after
+-- bulk writes (import, re-pricing, archival). Rows older than parking.cluster.retention are purged.
+CREATE TABLE ticket_changes (
+    id           BIGINT         NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    node_id      VARCHAR(64)    NOT NULL,
+    kind         VARCHAR(8)     NOT NULL,
+    ticket_id    BIGINT         NULL,
+    plate        VARCHAR(20)    NULL,
+    vehicletype  VARCHAR(16)    NULL,
+    status       VARCHAR(16)    NULL,
+    entrytime    DATETIME(6)    NULL,
+    exittime     DATETIME(6)    NULL,
+    amount       DECIMAL(38, 2) NULL,
+    created_at   DATETIME(6)    NOT NULL,
+    INDEX idx_ticket_changes_created (created_at)
+) ENGINE = InnoDB;
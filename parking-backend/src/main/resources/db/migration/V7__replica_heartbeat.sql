@@ -0,0 +1,7 @@
+-- Read replicas (parking.replica.url): each node writes its clock here every
+-- parking.replica.heartbeat-interval and reads its row back from the replica. The value seen there
+-- tells how far behind the replica is, and whether it already has the changes a read must see.
+CREATE TABLE replica_heartbeat (
+    node_id VARCHAR(64) NOT NULL PRIMARY KEY,
+    beat    BIGINT      NOT NULL
+) ENGINE = InnoDB;
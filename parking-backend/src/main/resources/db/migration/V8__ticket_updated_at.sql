@@ -0,0 +1,6 @@
+-- Changes feed (/api/tickets/changes): when a ticket row last changed. MySQL sets it on every insert
+-- and update, so gate events, CSV imports (with past entry times) and tariff re-pricing all show up.
+-- Existing rows get the migration time, so clients read them once more.
+ALTER TABLE tickets
+    ADD COLUMN updated_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+    ADD INDEX idx_tickets_updated (updated_at);
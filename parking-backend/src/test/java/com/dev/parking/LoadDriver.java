@@ -0,0 +1,86 @@
+package com.dev.parking;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load generator for comparing thread modes. Not a unit test: start the backend
+ * once normally and once with {@code --spring.profiles.active=vthreads}, then run
+ *
+ * <pre>
+ * java LoadDriver.java [url] [concurrency] [seconds]
+ * </pre>
+ *
+ * and compare the requests/sec and p99 lines.
+ */
+public class LoadDriver {
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "http://localhost:8080/api/tickets/page?status=CLOSED&sort=exitTime,desc&size=50";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).GET().build();
+
+        // warm up JIT and connection pools before measuring
+        run(http, request, concurrency, Duration.ofSeconds(Math.max(3, seconds / 5)), false);
+        run(http, request, concurrency, Duration.ofSeconds(seconds), true);
+    }
+
+    private static void run(HttpClient http, HttpRequest request, int concurrency, Duration duration,
+                            boolean report) throws InterruptedException {
+        ConcurrentLinkedQueue<long[]> perWorker = new ConcurrentLinkedQueue<>();
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        try (var workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.submit(() -> {
+                    long[] samples = new long[1024];
+                    int n = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> resp = http.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (resp.statusCode() >= 400) errors.incrementAndGet();
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        if (n == samples.length) samples = Arrays.copyOf(samples, n * 2);
+                        samples[n++] = System.nanoTime() - start;
+                    }
+                    perWorker.add(Arrays.copyOf(samples, n));
+                    return null;
+                });
+            }
+        }
+        if (!report) return;
+
+        long[] all = perWorker.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        if (all.length == 0) {
+            System.out.println("no requests completed");
+            return;
+        }
+        double rps = all.length / (double) duration.toSeconds();
+        System.out.printf("requests: %d, errors: %d, concurrency: %d%n", all.length, errors.get(), concurrency);
+        System.out.printf("requests/sec: %.1f%n", rps);
+        System.out.printf("p50: %.2f ms, p99: %.2f ms, max: %.2f ms%n",
+                percentile(all, 0.50), percentile(all, 0.99), all[all.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int idx = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, idx)] / 1e6;
+    }
+}
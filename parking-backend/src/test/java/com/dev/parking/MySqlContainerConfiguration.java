@@ -0,0 +1,19 @@
+package com.dev.parking;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.testcontainers.mysql.MySQLContainer;
+
+/**
+ * Throwaway MySQL for integration tests; Flyway migrates it on startup like a real parking_db.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class MySqlContainerConfiguration {
+
+    @Bean
+    @ServiceConnection
+    public MySQLContainer mysql() {
+        return new MySQLContainer("mysql:8.0");
+    }
+}
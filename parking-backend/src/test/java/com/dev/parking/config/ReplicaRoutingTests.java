@@ -0,0 +1,210 @@
+package com.dev.parking.config;
+
+import com.dev.parking.controller.TicketApiController;
+import com.dev.parking.entity.TicketStatus;
+import com.dev.parking.entity.VehicleType;
+import com.dev.parking.service.HistoryQueryCache;
+import com.dev.parking.service.PlateMatch;
+import com.dev.parking.service.TicketService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.mysql.MySQLContainer;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routing against two independent MySQL instances standing in for a primary and its replica.
+ * Nothing replicates between them, so the tests copy heartbeats over by hand and put rows only
+ * on the "replica" to see which database a listing, page or stream was read from.
+ */
+@SpringBootTest(properties = {
+        "parking.archive.enabled=false",
+        "parking.replica.max-lag=10s",
+        "parking.replica.heartbeat-interval=50ms"
+})
+@Testcontainers
+class ReplicaRoutingTests {
+
+    @Container
+    private static final MySQLContainer primary = new MySQLContainer("mysql:8.0");
+
+    @Container
+    private static final MySQLContainer replica = new MySQLContainer("mysql:8.0");
+
+    @DynamicPropertySource
+    static void databases(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", primary::getJdbcUrl);
+        registry.add("spring.datasource.username", primary::getUsername);
+        registry.add("spring.datasource.password", primary::getPassword);
+        registry.add("parking.replica.url", replica::getJdbcUrl);
+        registry.add("parking.replica.username", replica::getUsername);
+        registry.add("parking.replica.password", replica::getPassword);
+    }
+
+    @BeforeAll
+    static void replicaSchema() {
+        // what replication would have brought over
+        Flyway.configure().dataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword()).load().migrate();
+    }
+
+    @Autowired
+    private TicketService tickets;
+
+    @Autowired
+    private TicketApiController api;
+
+    @Autowired
+    private HistoryQueryCache cache;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate primaryDb;
+    private JdbcTemplate replicaDb;
+
+    @BeforeEach
+    void databases() throws SQLException {
+        ReplicaRoutingDataSource routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+        primaryDb = new JdbcTemplate(routing.primary());
+        replicaDb = new JdbcTemplate(routing.replica());
+    }
+
+    @Test
+    void listingsUseTheReplicaOnlyWhileItIsCaughtUp() throws InterruptedException {
+        replicaOnlyTicket(9_000_001L, "REPLICA-A1");
+
+        replicaDb.update("DELETE FROM replica_heartbeat");
+        eventually(() -> assertThat(list(null, "REPLICA-A1", PlateMatch.EXACT)).doesNotContain("REPLICA-A1"));
+
+        eventually(() -> {
+            replicateHeartbeats();
+            assertThat(list(null, "REPLICA-A1", PlateMatch.EXACT)).contains("REPLICA-A1");
+        });
+
+        // writes still go to the primary
+        tickets.manualEntry("REPLICA-A2", VehicleType.CAR);
+        assertThat(count(primaryDb, "REPLICA-A2")).isEqualTo(1);
+        assertThat(count(replicaDb, "REPLICA-A2")).isZero();
+    }
+
+    @Test
+    void aJustClosedTicketReadsBackFromThePrimary() throws InterruptedException {
+        tickets.manualEntry("REPLICA-B1", VehicleType.CAR);
+        replicaOnlyTicket(9_000_002L, "REPLICA-B2");
+        replicaOnlyTicket(9_000_003L, "REPLICA-C1");
+
+        // once the replica has caught up past the entry, the listing is read there
+        eventually(() -> {
+            replicateHeartbeats();
+            assertThat(list(null, "REPLICA-B", PlateMatch.PREFIX)).contains("REPLICA-B2");
+        });
+
+        tickets.manualExit("REPLICA-B1");
+
+        // the exit has not reached the replica, so this listing comes from the primary...
+        String closed = list(null, "REPLICA-B", PlateMatch.PREFIX);
+        assertThat(closed).contains("REPLICA-B1").contains("CLOSED").doesNotContain("REPLICA-B2");
+        // ...while one the exit cannot affect still uses the replica
+        assertThat(list(TicketStatus.OPEN, "REPLICA-C1", PlateMatch.EXACT)).contains("REPLICA-C1");
+    }
+
+    @Test
+    void bucketThreadsAndStreamsReadAJustClosedTicketFromThePrimary() throws Exception {
+        tickets.manualEntry("REPLICA-D1", VehicleType.CAR);
+        replicaOnlyTicket(9_000_004L, "REPLICA-D2");
+
+        eventually(() -> {
+            replicateHeartbeats();
+            assertThat(bucketedPage()).contains("REPLICA-D2");
+        });
+
+        tickets.manualExit("REPLICA-D1");
+
+        // the page's buckets run on threads of their own, the streams after the handler returned
+        assertThat(bucketedPage()).contains("REPLICA-D1").contains("CLOSED").doesNotContain("REPLICA-D2");
+        assertThat(body(api.stream(null, null, null, "REPLICA-D", PlateMatch.PREFIX, null, null, null, null).getBody()))
+                .contains("REPLICA-D1").contains("CLOSED").doesNotContain("REPLICA-D2");
+        assertThat(body(api.export(null, null, null, "REPLICA-D", PlateMatch.PREFIX, null, null, null, null).getBody()))
+                .contains("REPLICA-D1").contains("CLOSED").doesNotContain("REPLICA-D2");
+    }
+
+    //helpers
+
+    // an entry range four buckets wide, so the page is read by TimeBucketPlanner
+    private String bucketedPage() {
+        LocalDateTime now = LocalDateTime.now();
+        return api.page(null, "entryTime,desc", null, "REPLICA-D", PlateMatch.PREFIX, now.minusDays(27), now.plusDays(1),
+                null, null, null, 10).items().toString();
+    }
+
+    // written on another thread, as Spring MVC does with a StreamingResponseBody
+    private static String body(StreamingResponseBody body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompletableFuture.runAsync(() -> {
+            try {
+                body.writeTo(out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).get(10, TimeUnit.SECONDS);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private String list(TicketStatus status, String plate, PlateMatch match) {
+        cache.invalidateAll();
+        byte[] body = api.list(status, null, null, plate, match, null, null, null, null, null).getBody();
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private void replicaOnlyTicket(long id, String plate) {
+        replicaDb.update("INSERT INTO tickets (id, plate, vehicletype, status, entrytime) VALUES (?, ?, 'CAR', 'OPEN', ?)",
+                id, plate, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private void replicateHeartbeats() {
+        for (Map<String, Object> row : primaryDb.queryForList("SELECT node_id, beat FROM replica_heartbeat")) {
+            replicaDb.update("INSERT INTO replica_heartbeat (node_id, beat) VALUES (?, ?) ON DUPLICATE KEY UPDATE beat = ?",
+                    row.get("node_id"), row.get("beat"), row.get("beat"));
+        }
+    }
+
+    private static int count(JdbcTemplate db, String plate) {
+        return db.queryForObject("SELECT COUNT(*) FROM tickets WHERE plate = ?", Integer.class, plate);
+    }
+
+    // the heartbeat is read back on a schedule
+    private static void eventually(Runnable assertion) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            try {
+                assertion.run();
+                return;
+            } catch (AssertionError e) {
+                if (System.nanoTime() > deadline) throw e;
+                Thread.sleep(50);
+            }
+        }
+    }
+}
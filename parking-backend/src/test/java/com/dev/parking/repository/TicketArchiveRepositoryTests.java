@@ -0,0 +1,102 @@
+package com.dev.parking.repository;
+
+import com.dev.parking.MySqlContainerConfiguration;
+import com.dev.parking.controller.TicketApiController;
+import com.dev.parking.entity.TicketStatus;
+import com.dev.parking.service.PlateMatch;
+import com.dev.parking.service.TicketPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Moves old CLOSED tickets into tickets_archive and checks with EXPLAIN that an entry-time
+ * range only reads the matching monthly partition, and that History pages still find them.
+ */
+@SpringBootTest(properties = "parking.archive.enabled=false")
+@Import(MySqlContainerConfiguration.class)
+class TicketArchiveRepositoryTests {
+
+    // above the ids other tests seed
+    private static final long FIRST_ID = 2_000_000L;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TicketArchiveRepository archive;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TicketApiController api;
+
+    @Test
+    void movesClosedTicketsAndPrunesByEntryMonth() {
+        List<Object[]> rows = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 8, 0);
+        for (int i = 1; i <= 300; i++) {
+            LocalDateTime entry = base.plusHours(i * 6L);
+            rows.add(new Object[]{FIRST_ID + i, "ARC%04d".formatted(i), "CAR", Timestamp.valueOf(entry),
+                    Timestamp.valueOf(entry.plusHours(1)), "CLOSED"});
+        }
+        rows.add(new Object[]{FIRST_ID + 301, "ARC0301", "CAR", Timestamp.valueOf(base), null, "OPEN"});
+        jdbc.batchUpdate("INSERT INTO tickets (id, plate, vehicletype, entrytime, exittime, status) VALUES (?, ?, ?, ?, ?, ?)", rows);
+
+        LocalDateTime cutoff = LocalDateTime.of(2024, 6, 1, 0, 0);
+        TicketArchiveRepository.Batch batch = archive.nextBatch(cutoff, FIRST_ID, 1000);
+        assertThat(batch.count()).isEqualTo(300);
+        assertThat(YearMonth.from(batch.minEntry())).isEqualTo(YearMonth.of(2024, 1));
+
+        if (archive.lastPartitionedMonth() == null) {
+            archive.addMonthlyPartitions(YearMonth.from(batch.minEntry()), YearMonth.from(batch.maxEntry()));
+        }
+        Integer moved = new TransactionTemplate(transactionManager)
+                .execute(status -> archive.move(FIRST_ID, batch.lastId(), cutoff));
+
+        assertThat(moved).isEqualTo(300);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM tickets WHERE id > ?", Long.class, FIRST_ID)).isEqualTo(1);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM tickets_archive WHERE id > ?", Long.class, FIRST_ID)).isEqualTo(300);
+
+        Map<String, Object> plan = jdbc.queryForList("EXPLAIN SELECT * FROM tickets_archive "
+                + "WHERE entrytime >= '2024-02-01' AND entrytime < '2024-03-01'").getFirst();
+        assertThat(plan.get("partitions")).isEqualTo("p202402");
+    }
+
+    @Test
+    void archivedTicketsStillShowUpInHistoryPages() {
+        LocalDateTime entry = LocalDateTime.of(2023, 3, 1, 8, 0);
+        jdbc.update("INSERT INTO tickets_archive (id, plate, vehicletype, entrytime, exittime, status, amount) "
+                        + "VALUES (?, 'ARCPAGE1', 'CAR', ?, ?, 'CLOSED', 3.00)",
+                FIRST_ID + 1001, Timestamp.valueOf(entry), Timestamp.valueOf(entry.plusHours(1)));
+        jdbc.update("INSERT INTO tickets (id, plate, vehicletype, entrytime, exittime, status, amount) "
+                        + "VALUES (?, 'ARCPAGE2', 'CAR', ?, ?, 'CLOSED', 3.00)",
+                FIRST_ID + 1002, Timestamp.valueOf(entry.plusYears(2)), Timestamp.valueOf(entry.plusYears(2).plusHours(1)));
+
+        TicketPage first = page(null, null);
+        assertThat(first.items()).extracting(TicketView::plate).containsExactly("ARCPAGE2");
+        TicketPage second = page(null, first.nextCursor());
+        assertThat(second.items()).extracting(TicketView::plate).containsExactly("ARCPAGE1");
+        assertThat(second.nextCursor()).isNull();
+
+        assertThat(page(TicketStatus.OPEN, null).items()).isEmpty();
+    }
+
+    private TicketPage page(TicketStatus status, String cursor) {
+        return api.page(status, "entryTime,desc", null, "ARCPAGE", PlateMatch.PREFIX, null, null, null, null, cursor, 1);
+    }
+}
@@ -0,0 +1,86 @@
+package com.dev.parking.repository;
+
+import com.dev.parking.MySqlContainerConfiguration;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks with EXPLAIN that the hot lookups and History sorts are served by the V2 indexes
+ * rather than a full scan, and that the database rejects a second OPEN ticket for a plate.
+ */
+@SpringBootTest
+@Import(MySqlContainerConfiguration.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TicketIndexUsageTests {
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeAll
+    void seed() {
+        List<Object[]> rows = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 8, 0);
+        for (int i = 1; i <= 5000; i++) {
+            boolean open = i % 25 == 0;
+            LocalDateTime entry = base.plusMinutes(i * 7L);
+            rows.add(new Object[]{1_000_000L + i, "mh%02dab%04d".formatted(i % 40, i), "CAR",
+                    Timestamp.valueOf(entry), open ? null : Timestamp.valueOf(entry.plusHours(2)),
+                    open ? "OPEN" : "CLOSED"});
+        }
+        jdbc.batchUpdate("INSERT INTO tickets (id, plate, vehicletype, entrytime, exittime, status) VALUES (?, ?, ?, ?, ?, ?)", rows);
+        jdbc.execute("ANALYZE TABLE tickets");
+    }
+
+    @Test
+    void openLookupByPlateUsesNormalizedPlateIndex() {
+        assertThat(indexFor("SELECT id FROM tickets WHERE plate_norm = 'MH10AB0050' AND status = 'OPEN' ORDER BY entrytime DESC LIMIT 1"))
+                .isIn("idx_tickets_plate_norm_status", "uq_tickets_open_plate");
+    }
+
+    @Test
+    void closedHistoryByExitTimeUsesStatusExitIndex() {
+        assertThat(indexFor("SELECT * FROM tickets WHERE status = 'CLOSED' ORDER BY exittime DESC, id DESC LIMIT 100"))
+                .isEqualTo("idx_tickets_status_exit");
+    }
+
+    @Test
+    void openHistoryByEntryTimeUsesStatusEntryIndex() {
+        assertThat(indexFor("SELECT * FROM tickets WHERE status = 'OPEN' ORDER BY entrytime ASC, id ASC LIMIT 100"))
+                .isEqualTo("idx_tickets_status_entry");
+    }
+
+    @Test
+    void platePrefixSearchUsesNormalizedPlateIndex() {
+        assertThat(indexFor("SELECT * FROM tickets WHERE plate_norm LIKE 'MH12%'"))
+                .isEqualTo("idx_tickets_plate_norm_status");
+    }
+
+    @Test
+    void secondOpenTicketForSamePlateIsRejected() {
+        // mh25ab0025 is seeded OPEN (i = 25); a padded upper-case copy normalizes to the same plate
+        assertThatThrownBy(() -> jdbc.update(
+                "INSERT INTO tickets (id, plate, vehicletype, entrytime, status) VALUES (?, ' MH25AB0025', 'CAR', NOW(), 'OPEN')",
+                9_000_001L))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private String indexFor(String sql) {
+        Map<String, Object> plan = jdbc.queryForList("EXPLAIN " + sql).getFirst();
+        return (String) plan.get("key");
+    }
+}
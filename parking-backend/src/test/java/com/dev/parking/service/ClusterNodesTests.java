@@ -0,0 +1,174 @@
+package com.dev.parking.service;
+
+import com.dev.parking.ParkingApplication;
+import com.dev.parking.entity.Ticket;
+import com.dev.parking.entity.VehicleType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.mysql.MySQLContainer;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Three backend nodes in clustered mode on one database, as behind a load balancer: a ticket
+ * opened on one node can be closed on another, entries racing on several nodes open one ticket
+ * per plate, imports skip plates parked on other nodes, and each node's in-memory state catches
+ * up with the others' changes.
+ */
+@Testcontainers
+class ClusterNodesTests {
+
+    private static final int THREADS = 24;
+    private static final int PLATES = 4;
+
+    @Container
+    private static final MySQLContainer mysql = new MySQLContainer("mysql:8.0");
+
+    private static final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @BeforeAll
+    static void startNodes() {
+        for (String id : List.of("node-a", "node-b", "node-c")) {
+            nodes.add(new SpringApplicationBuilder(ParkingApplication.class).properties(
+                    "spring.datasource.url=" + mysql.getJdbcUrl(),
+                    "spring.datasource.username=" + mysql.getUsername(),
+                    "spring.datasource.password=" + mysql.getPassword(),
+                    "spring.datasource.hikari.pool-name=parking-db-" + id,
+                    "server.port=0",
+                    "parking.archive.enabled=false",
+                    "parking.cluster.enabled=true",
+                    "parking.cluster.node-id=" + id,
+                    "parking.cluster.poll-interval=50ms"
+            ).run());
+        }
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void ticketOpenedOnOneNodeClosesOnAnother() {
+        String plate = "CLUSTER-A1";
+        Ticket opened = node(0, TicketService.class).manualEntry(plate, VehicleType.CAR);
+
+        // right away, before node-b can have polled the change
+        assertThatThrownBy(() -> node(1, TicketService.class).manualEntry(plate, VehicleType.CAR))
+                .isInstanceOf(ResponseStatusException.class);
+        Ticket closed = node(1, TicketService.class).manualExit(plate);
+        Ticket reopened = node(2, TicketService.class).manualEntry(plate, VehicleType.CAR);
+
+        assertThat(closed.getId()).isEqualTo(opened.getId());
+        assertThat(reopened.getId()).isNotEqualTo(opened.getId());
+    }
+
+    @Test
+    void entriesRacingOnSeveralNodesOpenOneTicketPerPlate() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(THREADS)) {
+            for (int i = 0; i < THREADS; i++) {
+                String plate = "CLUSTER-B" + (i % PLATES);
+                int node = i % nodes.size();
+                done.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        start.await();
+                        node(node, GateEventIngestor.class).submitEntry(plate, VehicleType.CAR).join();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (RuntimeException rejected) {
+                        // expected for all but one entry per plate
+                    }
+                }, pool));
+            }
+            start.countDown();
+            CompletableFuture.allOf(done.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+        }
+
+        JdbcTemplate jdbc = node(0, JdbcTemplate.class);
+        for (int i = 0; i < PLATES; i++) {
+            assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM tickets WHERE plate = ? AND status = 'OPEN'",
+                    Integer.class, "CLUSTER-B" + i)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void otherNodesCatchUpWithChanges() throws InterruptedException {
+        String plate = "CLUSTER-C1";
+        // OTHER is not used by the other tests, so their changes cannot move this count
+        long before = node(1, OccupancyCounters.class).byVehicleType().get(VehicleType.OTHER);
+
+        Ticket opened = node(0, TicketService.class).manualEntry(plate, VehicleType.OTHER);
+        eventually(() -> {
+            assertThat(node(1, OpenTicketIndex.class).openTicketId(plate)).isEqualTo(opened.getId());
+            assertThat(node(1, OccupancyCounters.class).byVehicleType().get(VehicleType.OTHER)).isEqualTo(before + 1);
+            assertThat(node(1, PlateSearchIndex.class).containing("TER-C1")).contains(plate);
+        });
+
+        node(2, TicketService.class).manualExit(plate);
+        eventually(() -> {
+            assertThat(node(1, OpenTicketIndex.class).openTicketId(plate)).isNull();
+            assertThat(node(1, OccupancyCounters.class).byVehicleType().get(VehicleType.OTHER)).isEqualTo(before);
+        });
+    }
+
+    @Test
+    void importSkipsPlatesParkedOnAnotherNode() {
+        String parked = "CLUSTER-D1";
+        node(0, TicketService.class).manualEntry(parked, VehicleType.CAR);
+
+        // right away, before node-b can have polled the entry
+        String csv = TicketCsv.HEADER + "\n"
+                + ",CLUSTER-D1,CAR,OPEN,2024-05-01T08:00,,\n"
+                + ",CLUSTER-D2,CAR,OPEN,2024-05-01T08:00,,\n";
+        TicketImporter.Result result = node(1, TicketImporter.class)
+                .importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.imported()).isEqualTo(1);
+        assertThat(result.skipped()).isEqualTo(1);
+        JdbcTemplate jdbc = node(0, JdbcTemplate.class);
+        for (String plate : List.of(parked, "CLUSTER-D2")) {
+            assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM tickets WHERE plate = ? AND status = 'OPEN'",
+                    Integer.class, plate)).isEqualTo(1);
+        }
+    }
+
+    //helpers
+
+    private static <T> T node(int i, Class<T> bean) {
+        return nodes.get(i).getBean(bean);
+    }
+
+    // changes from other nodes arrive with the next poll
+    private static void eventually(Runnable assertion) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            try {
+                assertion.run();
+                return;
+            } catch (AssertionError e) {
+                if (System.nanoTime() > deadline) throw e;
+                Thread.sleep(50);
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.dev.parking.service;
+
+import com.dev.parking.MySqlContainerConfiguration;
+import com.dev.parking.entity.Ticket;
+import com.dev.parking.entity.VehicleType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Many gates reading the same plates at once, through the ingestor and directly through
+ * {@link TicketService}: each plate must end up with exactly one OPEN ticket, and retries with an
+ * idempotency key must return the ticket of the first attempt (and only for the same request).
+ */
+@SpringBootTest(properties = "parking.archive.enabled=false")
+@Import(MySqlContainerConfiguration.class)
+class GateConcurrencyTests {
+
+    private static final int THREADS = 32;
+    private static final int PLATES = 5;
+
+    @Autowired
+    private GateEventIngestor ingestor;
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void concurrentEntriesOpenOneTicketPerPlate() throws Exception {
+        List<String> plates = new ArrayList<>();
+        for (int i = 0; i < PLATES; i++) plates.add("STRESS-A" + i);
+
+        hammer(THREADS, i -> {
+            String plate = plates.get(i % PLATES);
+            try {
+                if (i % 2 == 0) {
+                    ingestor.submitEntry(plate, VehicleType.CAR).join();
+                } else {
+                    ticketService.manualEntry(plate, VehicleType.CAR);
+                }
+            } catch (CompletionException | ResponseStatusException e) {
+                // all but one entry per plate, and only because the plate is taken
+                Throwable rejected = e instanceof CompletionException ? e.getCause() : e;
+                assertThat(rejected).isInstanceOf(ResponseStatusException.class);
+                assertThat(((ResponseStatusException) rejected).getReason()).startsWith("Ticket already OPEN");
+            }
+        });
+
+        for (String plate : plates) {
+            assertThat(openTickets(plate)).as(plate).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void retriesWithTheSameKeyGetTheSameTicket() throws Exception {
+        String plate = "STRESS-B1";
+        String key = "gate-7:" + plate + ":1";
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        hammer(THREADS, i -> ids.add(ingestor.submitEntry(plate, VehicleType.CAR, key).join().getId()));
+
+        assertThat(ids).hasSize(1);
+        assertThat(openTickets(plate)).isEqualTo(1);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM gate_requests WHERE idem_key = ?", Integer.class, key))
+                .isEqualTo(1);
+
+        // a late retry is answered from the stored key, not rejected as a second entry
+        Ticket again = ingestor.submitEntry(plate, VehicleType.CAR, key).join();
+        assertThat(again.getId()).isEqualTo(ids.iterator().next());
+    }
+
+    @Test
+    void exitWithAKeyClosesOnce() {
+        String plate = "STRESS-C1";
+        Ticket entered = ingestor.submitEntry(plate, VehicleType.CAR, "entry:" + plate).join();
+
+        Ticket exited = ingestor.submitExit(plate, "exit:" + plate).join();
+        Ticket retried = ingestor.submitExit(plate, "exit:" + plate).join();
+
+        assertThat(exited.getId()).isEqualTo(entered.getId());
+        assertThat(retried.getId()).isEqualTo(exited.getId());
+        assertThat(retried.getAmount()).isEqualByComparingTo(exited.getAmount());
+        assertThat(openTickets(plate)).isZero();
+    }
+
+    @Test
+    void aKeyReusedForAnotherRequestIsRejected() {
+        String key = "gate-9:STRESS-E1:1";
+        Ticket first = ingestor.submitEntry("STRESS-E1", VehicleType.CAR, key).join();
+
+        assertThat(ingestor.submitEntry(" stress-e1 ", VehicleType.CAR, key).join().getId()).isEqualTo(first.getId());
+        assertConflict(ingestor.submitEntry("STRESS-E2", VehicleType.CAR, key));
+        assertConflict(ingestor.submitEntry("STRESS-E1", VehicleType.TRUCK, key));
+        assertConflict(ingestor.submitExit("STRESS-E1", key));
+        assertThat(openTickets("STRESS-E2")).isZero();
+
+        // stored by another instance, so only gate_requests knows it
+        jdbc.update("INSERT INTO gate_requests (idem_key, op, fingerprint, ticket_id, created_at) VALUES (?, ?, ?, ?, NOW(6))",
+                "gate-9:other", "ENTRY", GateIdempotency.fingerprint(GateEventIngestor.GateEvent.Kind.ENTRY,
+                        "STRESS-E1", VehicleType.CAR), first.getId());
+        assertConflict(ingestor.submitEntry("STRESS-E3", VehicleType.CAR, "gate-9:other"));
+        assertThat(openTickets("STRESS-E3")).isZero();
+    }
+
+    @Test
+    void exitRacingAnEntryNeverStrandsTheTicket() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            String plate = "STRESS-D" + round;
+            hammer(2, i -> {
+                try {
+                    if (i == 0) {
+                        ticketService.manualEntry(plate, VehicleType.CAR);
+                    } else {
+                        ticketService.manualExit(plate);
+                    }
+                } catch (ResponseStatusException e) {
+                    // the exit may run before the entry commits
+                    assertThat(e.getReason()).startsWith("No OPEN ticket");
+                }
+            });
+
+            // whichever way the race went, the ticket can still be closed
+            if (openTickets(plate) == 1) ticketService.manualExit(plate);
+            assertThat(openTickets(plate)).as(plate).isZero();
+        }
+    }
+
+    //helpers
+
+    private static void assertConflict(CompletableFuture<Ticket> result) {
+        assertThatThrownBy(result::join).cause()
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+    }
+
+    private int openTickets(String plate) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM tickets WHERE plate = ? AND status = 'OPEN'",
+                Integer.class, plate);
+    }
+
+    // starts all tasks at once so they really contend
+    private static void hammer(int threads, IntTask task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+            for (int i = 0; i < threads; i++) {
+                int n = i;
+                done.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    task.run(n);
+                }, pool));
+            }
+            start.countDown();
+            CompletableFuture.allOf(done.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IntTask {
+        void run(int i);
+    }
+}
@@ -0,0 +1,32 @@
+package com.dev.parking.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HistoryCursorTests {
+
+    @Test
+    void roundTrips() {
+        HistoryCursor cursor = new HistoryCursor("exitTime", LocalDateTime.of(2025, 1, 1, 9, 0).toString(), 42);
+        assertThat(HistoryCursor.decode(cursor.encode())).isEqualTo(cursor);
+        assertThat(HistoryCursor.decode(new HistoryCursor("exitTime", null, 7).encode()).time()).isNull();
+    }
+
+    @Test
+    void rejectsTamperedTokens() {
+        for (String raw : new String[]{"exitTime|42|yesterday", "entryTime|x|2025-01-01T09:00", "status|1|OPEN", "id"}) {
+            String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+            assertThatThrownBy(() -> HistoryCursor.decode(token))
+                    .isInstanceOf(ResponseStatusException.class)
+                    .hasMessageContaining("Invalid cursor");
+        }
+        assertThatThrownBy(() -> HistoryCursor.decode("!!")).isInstanceOf(ResponseStatusException.class);
+    }
+}
@@ -0,0 +1,81 @@
+package com.dev.parking.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoryQueryCacheTests {
+
+    private final HistoryQueryCache cache = new HistoryQueryCache(Duration.ofMinutes(1), DataSize.ofMegabytes(1),
+            DataSize.ofKilobytes(64), new SimpleMeterRegistry());
+    private final HistoryQuery query = HistoryQuery.of(null, null, null, null, null);
+
+    @Test
+    void identicalMissesShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<HistoryQueryCache.Lookup>> gets = new ArrayList<>();
+        List<HistoryQueryCache.Source> sources = new ArrayList<>();
+
+        try (ExecutorService pool = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                gets.add(CompletableFuture.supplyAsync(() -> cache.lookup(query, () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return body("rows");
+                }), pool));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (CompletableFuture<HistoryQueryCache.Lookup> get : gets) {
+                HistoryQueryCache.Lookup lookup = get.get(10, TimeUnit.SECONDS);
+                assertThat(lookup.entry().body()).isEqualTo(body("rows"));
+                sources.add(lookup.source());
+            }
+        }
+        assertThat(loads).hasValue(1);
+        // the requests that waited on the load were not served from the cache
+        assertThat(sources).containsOnlyOnce(HistoryQueryCache.Source.MISS)
+                .doesNotContain(HistoryQueryCache.Source.HIT);
+        assertThat(cache.stats().hitCount()).isZero();
+    }
+
+    @Test
+    void loadThatStraddlesAnInvalidationIsNotKept() {
+        HistoryQueryCache.Entry stale = cache.get(query, () -> {
+            cache.invalidateAll();
+            return body("before");
+        });
+        assertThat(stale.body()).isEqualTo(body("before"));
+
+        assertThat(cache.get(query, () -> body("after")).body()).isEqualTo(body("after"));
+        assertThat(cache.get(query, () -> body("again")).body()).isEqualTo(body("after"));
+    }
+
+    //helpers
+
+    private static byte[] body(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.dev.parking.service;
+
+import com.dev.parking.entity.TicketStatus;
+import com.dev.parking.entity.VehicleType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoryQueryTests {
+
+    private static final LocalDateTime T = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+    private final TicketEvent opened = new TicketEvent(TicketEvent.Type.OPENED, 1, "MH12AB1234", VehicleType.CAR,
+            TicketStatus.OPEN, T, null, null);
+    private final TicketEvent closed = new TicketEvent(TicketEvent.Type.CLOSED, 1, "MH12AB1234", VehicleType.CAR,
+            TicketStatus.CLOSED, T, T.plusHours(1), null);
+
+    @Test
+    void equivalentRequestsShareAKey() {
+        assertThat(HistoryQuery.of(null, null, " mh12ab ", null, "exitTime , DESC"))
+                .isEqualTo(HistoryQuery.of(null, null, "MH12AB", PlateMatch.CONTAINS, "exitTime,desc"));
+    }
+
+    @Test
+    void exitEvictsOpenAndClosedListings() {
+        assertThat(HistoryQuery.of(TicketStatus.OPEN, null, null, null, null).affectedBy(closed)).isTrue();
+        assertThat(HistoryQuery.of(TicketStatus.CLOSED, null, null, null, null).affectedBy(closed)).isTrue();
+        assertThat(HistoryQuery.of(TicketStatus.CLOSED, null, null, null, null).affectedBy(opened)).isFalse();
+    }
+
+    @Test
+    void filtersNarrowWhatIsEvicted() {
+        assertThat(HistoryQuery.of(null, VehicleType.BIKE, null, null, null).affectedBy(opened)).isFalse();
+        assertThat(HistoryQuery.of(null, null, "12ab", null, null).affectedBy(opened)).isTrue();
+        assertThat(HistoryQuery.of(null, null, "12ab", PlateMatch.PREFIX, null).affectedBy(opened)).isFalse();
+        assertThat(HistoryQuery.of(null, null, "mh12ab1234", PlateMatch.EXACT, null).affectedBy(opened)).isTrue();
+    }
+
+    @Test
+    void timeWindowsNarrowWhatIsEvicted() {
+        TimeWindow lastHour = TimeWindow.of(T.minusHours(1), null);
+        assertThat(HistoryQuery.of(null, null, null, null, lastHour, TimeWindow.ALL, null).affectedBy(opened)).isTrue();
+        assertThat(HistoryQuery.of(null, null, null, null, TimeWindow.of(null, T.minusHours(1)), TimeWindow.ALL, null)
+                .affectedBy(opened)).isFalse();
+        // an OPEN ticket has no exit time, so it is outside any exit range
+        assertThat(HistoryQuery.of(null, null, null, null, TimeWindow.ALL, lastHour, null).affectedBy(opened)).isFalse();
+        assertThat(HistoryQuery.of(null, null, null, null, TimeWindow.ALL, lastHour, null).affectedBy(closed)).isTrue();
+    }
+}
@@ -0,0 +1,47 @@
+package com.dev.parking.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlateSearchIndexTests {
+
+    @Test
+    void shortQueriesScanEveryPlate() {
+        PlateSearchIndex index = index(10, "AB123", "XA1", "ZZ9");
+
+        assertThat(index.containing("A")).containsExactlyInAnyOrder("AB123", "XA1");
+        assertThat(index.containing("Z9")).containsExactly("ZZ9");
+    }
+
+    @Test
+    void longerQueriesAreFilteredFromTheirTrigrams() {
+        PlateSearchIndex index = index(10, " ab123 ", "B12X", "B1-2");
+
+        assertThat(index.containing("B12")).containsExactlyInAnyOrder("AB123", "B12X");
+        // every trigram is known, but not in this order
+        assertThat(index.containing("AB12X")).isEmpty();
+    }
+
+    @Test
+    void aMissingTrigramMatchesNothing() {
+        assertThat(index(10, "AB123", "CD456").containing("QQQ")).isEmpty();
+    }
+
+    @Test
+    void tooManyCandidatesFallBackToAScan() {
+        PlateSearchIndex index = index(2, "ABC1", "ABC2", "ABC3");
+
+        assertThat(index.containing("ABC")).isNull();
+        assertThat(index.containing("BC3")).containsExactly("ABC3");
+    }
+
+    //helpers
+
+    // the repository is only used to warm the index from the database
+    private static PlateSearchIndex index(int maxCandidates, String... plates) {
+        PlateSearchIndex index = new PlateSearchIndex(null, maxCandidates);
+        for (String plate : plates) index.add(plate);
+        return index;
+    }
+}
@@ -0,0 +1,45 @@
+package com.dev.parking.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateTableTests {
+
+    // 1.00/h at night, 3.00/h in the day, capped at 25.00 per calendar day
+    private final RateTable table = RateTable.compile(
+            List.of("00:00-07:00=100", "07:00-19:00=300", "19:00-24:00=100"), 2500);
+
+    @Test
+    void chargesPerStartedMinuteWithinOneBand() {
+        assertThat(table.priceCents(at(1, 10, 0), at(1, 11, 0))).isEqualTo(300);
+        assertThat(table.priceCents(at(1, 10, 0), at(1, 10, 0).plusSeconds(1))).isEqualTo(5);
+    }
+
+    @Test
+    void spansBands() {
+        // 06:00-08:00 = one night hour + one day hour
+        assertThat(table.priceCents(at(1, 6, 0), at(1, 8, 0))).isEqualTo(400);
+    }
+
+    @Test
+    void capsEachCalendarDay() {
+        // full day uncapped would be 7 + 36 + 5 = 48.00
+        assertThat(table.priceCents(at(1, 0, 0), at(2, 0, 0))).isEqualTo(2500);
+        // two capped partial days plus three full capped days
+        assertThat(table.priceCents(at(1, 8, 0), at(5, 18, 0))).isEqualTo(5 * 2500);
+    }
+
+    @Test
+    void nothingForEmptyOrNegativeStay() {
+        assertThat(table.priceCents(at(1, 8, 0), at(1, 8, 0))).isZero();
+        assertThat(table.priceCents(at(1, 9, 0), at(1, 8, 0))).isZero();
+    }
+
+    private static LocalDateTime at(int day, int hour, int minute) {
+        return LocalDateTime.of(2025, 3, day, hour, minute);
+    }
+}
@@ -0,0 +1,35 @@
+package com.dev.parking.service;
+
+import com.dev.parking.entity.TicketStatus;
+import com.dev.parking.entity.VehicleType;
+import com.dev.parking.repository.TicketView;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TicketCsvTests {
+
+    @Test
+    void roundTripsQuotedPlates() throws IOException {
+        TicketView t = new TicketView(null, "MH \"12\", AB", VehicleType.CAR, TicketStatus.CLOSED,
+                LocalDateTime.of(2025, 1, 1, 9, 0), LocalDateTime.of(2025, 1, 1, 10, 30, 15), new BigDecimal("4.50"));
+
+        StringWriter out = new StringWriter();
+        TicketCsv.write(out, t);
+
+        assertThat(TicketCsv.parse(out.toString().stripTrailing())).containsExactly(
+                null, "MH \"12\", AB", "CAR", "CLOSED", "2025-01-01T09:00", "2025-01-01T10:30:15", "4.50");
+    }
+
+    @Test
+    void emptyFieldsAreNull() {
+        assertThat(TicketCsv.parse("7,MH12,BIKE,OPEN,2025-01-01T09:00,,"))
+                .isEqualTo(Arrays.asList("7", "MH12", "BIKE", "OPEN", "2025-01-01T09:00", null, null));
+    }
+}
@@ -0,0 +1,50 @@
+package com.dev.parking.service;
+
+import com.dev.parking.entity.TicketStatus;
+import com.dev.parking.entity.VehicleType;
+import com.dev.parking.repository.TicketView;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeBucketPlannerTests {
+
+    private static final LocalDateTime T = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Test
+    void splitsIntoFixedSizeBuckets() {
+        assertThat(TimeWindow.bucketStarts(T, T.plusDays(20), Duration.ofDays(7), 16))
+                .containsExactly(T, T.plusDays(7), T.plusDays(14));
+    }
+
+    @Test
+    void widensBucketsPastTheLimit() {
+        List<LocalDateTime> starts = TimeWindow.bucketStarts(T, T.plusDays(90), Duration.ofDays(1), 10);
+        assertThat(starts).hasSize(10).startsWith(T, T.plusDays(9));
+    }
+
+    @Test
+    void mergeOrderPutsNullsLowestLikeMySql() {
+        TicketView open = ticket(1L, "mh01", null);
+        TicketView early = ticket(2L, "MH02", T);
+        TicketView late = ticket(3L, "mh03", T.plusHours(1));
+
+        List<TicketView> rows = new ArrayList<>(List.of(late, open, early));
+        rows.sort(TimeBucketPlanner.comparator(Sort.by(Sort.Direction.DESC, "exitTime")));
+        assertThat(rows).containsExactly(late, early, open);
+
+        rows.sort(TimeBucketPlanner.comparator(Sort.by("plate")));
+        assertThat(rows).containsExactly(open, early, late);
+    }
+
+    private static TicketView ticket(Long id, String plate, LocalDateTime exit) {
+        TicketStatus status = exit == null ? TicketStatus.OPEN : TicketStatus.CLOSED;
+        return new TicketView(id, plate, VehicleType.CAR, status, T.minusHours(1), exit, null);
+    }
+}
@@ -0,0 +1,109 @@
+package com.dev.parking.bench;
+
+import com.dev.parking.ParkingApplication;
+import com.dev.parking.entity.Ticket;
+import com.dev.parking.entity.TicketStatus;
+import com.dev.parking.entity.VehicleType;
+import com.dev.parking.repository.TicketRepository;
+import com.dev.parking.service.OpenTicketIndex;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Boots the backend against an in-memory H2 database in MySQL mode and seeds it with
+ * {@code tickets} rows: mostly CLOSED history plus ~5% OPEN, spread over the last year.
+ */
+public final class SeededContext implements AutoCloseable {
+
+    public static final int OPEN_EVERY = 20;
+
+    private static final int SEED_CHUNK = 1000;
+    private static final AtomicInteger TRIALS = new AtomicInteger();
+
+    private final ConfigurableApplicationContext context;
+
+    private SeededContext(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    public static SeededContext start(int tickets) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ParkingApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        // fresh database per trial; JMH may start several contexts in one fork
+                        "spring.datasource.url=jdbc:h2:mem:bench" + TRIALS.incrementAndGet()
+                                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.flyway.enabled=false",
+                        "spring.sql.init.mode=always",
+                        "spring.sql.init.schema-locations=classpath:bench-schema.sql",
+                        "spring.jpa.hibernate.ddl-auto=none",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.format_sql=false",
+                        "parking.history.stream-fetch-size=500",
+                        "parking.archive.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+
+        SeededContext seeded = new SeededContext(context);
+        seeded.seed(tickets);
+        // the index warmed on an empty table; rebuild it from the seeded rows
+        context.getBean(OpenTicketIndex.class).afterSingletonsInstantiated();
+        return seeded;
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    private void seed(int tickets) {
+        TicketRepository repo = bean(TicketRepository.class);
+        TransactionTemplate tx = new TransactionTemplate(bean(PlatformTransactionManager.class));
+        Random random = new Random(42);
+        VehicleType[] types = VehicleType.values();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int from = 0; from < tickets; from += SEED_CHUNK) {
+            List<Ticket> chunk = new ArrayList<>(SEED_CHUNK);
+            for (int i = from; i < Math.min(tickets, from + SEED_CHUNK); i++) {
+                Ticket t = new Ticket();
+                t.setPlate(plate(i));
+                t.setVehicleType(types[random.nextInt(types.length)]);
+                LocalDateTime entry = now.minusMinutes(random.nextInt(365 * 24 * 60));
+                t.setEntryTime(entry);
+                if (i % OPEN_EVERY == 0) {
+                    t.setStatus(TicketStatus.OPEN);
+                } else {
+                    t.setStatus(TicketStatus.CLOSED);
+                    t.setExitTime(entry.plusMinutes(5 + random.nextInt(600)));
+                    t.setAmount(BigDecimal.valueOf(random.nextInt(5000), 2));
+                }
+                chunk.add(t);
+            }
+            tx.executeWithoutResult(status -> repo.saveAll(chunk));
+        }
+    }
+
+    /**
+     * Plate of the i-th seeded ticket; every OPEN_EVERY-th one is OPEN.
+     */
+    public static String plate(int i) {
+        return "MH%02dAB%05d".formatted(i % 50, i);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,63 @@
+package com.dev.parking.bench;
+
+import com.dev.parking.entity.Ticket;
+import com.dev.parking.entity.TicketStatus;
+import com.dev.parking.repository.TicketRepository;
+import com.dev.parking.repository.TicketSpecifications;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A large History listing end to end (query, materialize, serialize): managed {@link Ticket}
+ * entities, as {@code /api/tickets} used to load them, against {@code TicketView} projections.
+ * Run with {@code -prof gc} for bytes allocated per listing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TicketListingBenchmark {
+
+    @Param("10000")
+    public int tickets;
+
+    private SeededContext context;
+    private TicketRepository repo;
+    private TransactionTemplate tx;
+    private ObjectMapper mapper;
+
+    private final Specification<Ticket> closed = TicketSpecifications.hasStatus(TicketStatus.CLOSED);
+    private final Sort byExit = Sort.by(Sort.Direction.DESC, "exitTime").and(Sort.by(Sort.Direction.DESC, "id"));
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SeededContext.start(tickets);
+        repo = context.bean(TicketRepository.class);
+        mapper = context.bean(ObjectMapper.class);
+        tx = new TransactionTemplate(context.bean(PlatformTransactionManager.class));
+        // read-only like the listing it stands for, so Hibernate skips dirty-checking snapshots and the flush
+        tx.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] entities() {
+        return tx.execute(status -> mapper.writeValueAsBytes(repo.findAll(closed, byExit)));
+    }
+
+    @Benchmark
+    public byte[] views() {
+        return mapper.writeValueAsBytes(repo.findViews(closed, byExit, Integer.MAX_VALUE));
+    }
+}
@@ -0,0 +1,46 @@
+package com.dev.parking.bench;
+
+import com.dev.parking.entity.Ticket;
+import com.dev.parking.repository.TicketRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Sort;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response encoding cost of a History listing: Jackson serialization of a ticket list with the
+ * application's own ObjectMapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TicketSerializationBenchmark {
+
+    @Param("10000")
+    public int tickets;
+
+    private SeededContext context;
+    private ObjectMapper mapper;
+    private List<Ticket> rows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SeededContext.start(tickets);
+        mapper = context.bean(ObjectMapper.class);
+        rows = context.bean(TicketRepository.class).findAll(Sort.by("id"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] serializeList() {
+        return mapper.writeValueAsBytes(rows);
+    }
+}
@@ -0,0 +1,57 @@
+package com.dev.parking.bench;
+
+import com.dev.parking.entity.Ticket;
+import com.dev.parking.entity.VehicleType;
+import com.dev.parking.service.TicketService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gate hot path: a full entry + exit for a fresh plate, and the rejection of an entry for a
+ * plate that already has an OPEN ticket.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TicketServiceBenchmark {
+
+    @Param("10000")
+    public int tickets;
+
+    private SeededContext context;
+    private TicketService service;
+    private final AtomicLong plates = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SeededContext.start(tickets);
+        service = context.bean(TicketService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Ticket entryThenExit() {
+        String plate = "BENCH" + plates.incrementAndGet();
+        service.manualEntry(plate, VehicleType.CAR);
+        return service.manualExit(plate);
+    }
+
+    @Benchmark
+    public Object entryRejectedWhileOpen() {
+        try {
+            return service.manualEntry(SeededContext.plate(0), VehicleType.CAR);
+        } catch (ResponseStatusException expected) {
+            return expected;
+        }
+    }
+}
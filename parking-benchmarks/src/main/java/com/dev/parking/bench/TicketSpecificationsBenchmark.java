@@ -0,0 +1,76 @@
+package com.dev.parking.bench;
+
+import com.dev.parking.entity.Ticket;
+import com.dev.parking.entity.TicketStatus;
+import com.dev.parking.entity.VehicleType;
+import com.dev.parking.repository.TicketRepository;
+import com.dev.parking.repository.TicketSpecifications;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * History filter path: composing the specifications, rendering them to a criteria predicate,
+ * and running the resulting query against the seeded table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TicketSpecificationsBenchmark {
+
+    @Param("10000")
+    public int tickets;
+
+    @Param({"", "AB0012"})
+    public String plate;
+
+    private SeededContext context;
+    private TicketRepository repo;
+    private CriteriaBuilder cb;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SeededContext.start(tickets);
+        repo = context.bean(TicketRepository.class);
+        cb = context.bean(EntityManagerFactory.class).getCriteriaBuilder();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Specification<Ticket> compose() {
+        return spec();
+    }
+
+    @Benchmark
+    public Predicate toPredicate() {
+        CriteriaQuery<Ticket> query = cb.createQuery(Ticket.class);
+        Root<Ticket> root = query.from(Ticket.class);
+        return spec().toPredicate(root, query, cb);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Ticket> findAll() {
+        return repo.findAll(spec(), Sort.by(Sort.Direction.DESC, "exitTime"));
+    }
+
+    private Specification<Ticket> spec() {
+        return Specification.where(TicketSpecifications.hasStatus(TicketStatus.CLOSED))
+                .and(TicketSpecifications.hasVehicleType(VehicleType.CAR))
+                .and(TicketSpecifications.plateContains(plate));
+    }
+}
@@ -0,0 +1,26 @@
+package com.dev.parking.controller;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Sort;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sort parameter parsing done on every History request. Lives in the controller package
+ * because {@code parseSort} is package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParseSortBenchmark {
+
+    @Param({"exitTime,desc", "plate", ""})
+    public String sort;
+
+    @Benchmark
+    public Sort parseSort() {
+        return TicketApiController.parseSort(sort);
+    }
+}
@@ -0,0 +1,87 @@
+-- H2 equivalent of parking-backend's Flyway migrations (those use MySQL-only syntax).
+
+CREATE SEQUENCE tickets_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE tickets (
+    id          BIGINT         NOT NULL PRIMARY KEY,
+    plate       VARCHAR(20)    NOT NULL,
+    plate_norm  VARCHAR(20)    GENERATED ALWAYS AS (UPPER(TRIM(plate))),
+    vehicletype VARCHAR(16)    NOT NULL,
+    entrytime   TIMESTAMP(6)   NULL,
+    exittime    TIMESTAMP(6)   NULL,
+    status      VARCHAR(16)    NOT NULL,
+    open_plate  VARCHAR(20)    GENERATED ALWAYS AS (CASE WHEN status = 'OPEN' THEN UPPER(TRIM(plate)) END),
+    amount      DECIMAL(38, 2) NULL,
+    version     BIGINT         NOT NULL DEFAULT 0,
+    updated_at  TIMESTAMP(6)   NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)
+);
+
+CREATE UNIQUE INDEX uq_tickets_open_plate ON tickets (open_plate);
+CREATE INDEX idx_tickets_plate_norm_status ON tickets (plate_norm, status, entrytime);
+CREATE INDEX idx_tickets_status_exit ON tickets (status, exittime);
+CREATE INDEX idx_tickets_status_entry ON tickets (status, entrytime);
+CREATE INDEX idx_tickets_exit ON tickets (exittime);
+CREATE INDEX idx_tickets_entry ON tickets (entrytime);
+CREATE INDEX idx_tickets_plate ON tickets (plate);
+CREATE INDEX idx_tickets_updated ON tickets (updated_at);
+
+CREATE TABLE ticket_hourly_stats (
+    bucket_start TIMESTAMP      NOT NULL,
+    vehicletype  VARCHAR(16)    NOT NULL,
+    entries      BIGINT         NOT NULL DEFAULT 0,
+    exits        BIGINT         NOT NULL DEFAULT 0,
+    revenue      DECIMAL(38, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (bucket_start, vehicletype)
+);
+
+-- unpartitioned; the benchmarks do not archive
+CREATE TABLE tickets_archive (
+    id          BIGINT         NOT NULL,
+    plate       VARCHAR(20)    NOT NULL,
+    plate_norm  VARCHAR(20)    GENERATED ALWAYS AS (UPPER(TRIM(plate))),
+    vehicletype VARCHAR(16)    NOT NULL,
+    entrytime   TIMESTAMP(6)   NOT NULL,
+    exittime    TIMESTAMP(6)   NULL,
+    status      VARCHAR(16)    NOT NULL,
+    amount      DECIMAL(38, 2) NULL,
+    PRIMARY KEY (id, entrytime)
+);
+
+CREATE INDEX idx_tickets_archive_entry ON tickets_archive (entrytime);
+CREATE INDEX idx_tickets_archive_plate_norm ON tickets_archive (plate_norm, entrytime);
+CREATE INDEX idx_tickets_archive_exit ON tickets_archive (exittime);
+
+CREATE TABLE gate_requests (
+    idem_key    VARCHAR(100) NOT NULL PRIMARY KEY,
+    op          VARCHAR(8)   NOT NULL,
+    fingerprint VARCHAR(64)  NOT NULL,
+    ticket_id   BIGINT       NOT NULL,
+    created_at  TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX idx_gate_requests_created ON gate_requests (created_at);
+
+CREATE TABLE plate_locks (
+    plate VARCHAR(20) NOT NULL PRIMARY KEY
+);
+
+CREATE TABLE ticket_changes (
+    id          BIGINT         NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    node_id     VARCHAR(64)    NOT NULL,
+    kind        VARCHAR(8)     NOT NULL,
+    ticket_id   BIGINT         NULL,
+    plate       VARCHAR(20)    NULL,
+    vehicletype VARCHAR(16)    NULL,
+    status      VARCHAR(16)    NULL,
+    entrytime   TIMESTAMP(6)   NULL,
+    exittime    TIMESTAMP(6)   NULL,
+    amount      DECIMAL(38, 2) NULL,
+    created_at  TIMESTAMP(6)   NOT NULL
+);
+
+CREATE INDEX idx_ticket_changes_created ON ticket_changes (created_at);
+
+CREATE TABLE replica_heartbeat (
+    node_id VARCHAR(64) NOT NULL PRIMARY KEY,
+    beat    BIGINT      NOT NULL
+);
@@ -0,0 +1,261 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The one HTTP transport every screen shares: a single {@link HttpClient} (HTTP/2 where the
+ * backend offers it, pooled keep-alive connections otherwise) with connect and request timeouts,
+ * retries with jittered backoff, and coalescing of identical concurrent GETs.
+ *
+ * <p>Settings are system properties: {@code parking.api.url} (default http://localhost:8080),
+ * {@code parking.api.connect-timeout} and {@code parking.api.request-timeout} in milliseconds,
+ * and {@code parking.api.retries}.
+ */
+public final class ApiTransport {
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private static final ApiTransport SHARED = new ApiTransport(
+            System.getProperty("parking.api.url", "http://localhost:8080"),
+            Duration.ofMillis(Long.getLong("parking.api.connect-timeout", 3_000)),
+            Duration.ofMillis(Long.getLong("parking.api.request-timeout", 15_000)),
+            Integer.getInteger("parking.api.retries", 3));
+
+    private static final long BASE_BACKOFF_MS = 200;
+    private static final long MAX_BACKOFF_MS = 5_000;
+    private static final Set<Integer> RETRY_STATUSES = Set.of(429, 502, 503, 504);
+
+    // parsers block on streamed bodies; keep them off HttpClient's own threads
+    private static final ExecutorService PARSERS = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final String baseUrl;
+    private final Duration requestTimeout;
+    private final int retries;
+    private final HttpClient http;
+    private final ConcurrentHashMap<String, Shared<?>> inFlight = new ConcurrentHashMap<>();
+
+    ApiTransport(String baseUrl, Duration connectTimeout, Duration requestTimeout, int retries) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.requestTimeout = requestTimeout;
+        this.retries = retries;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    public static ApiTransport shared() {
+        return SHARED;
+    }
+
+    /**
+     * The underlying client, for long-lived exchanges (event streams) that must not time out.
+     */
+    public HttpClient http() {
+        return http;
+    }
+
+    /**
+     * {@code path} on the backend with {@code params} as an encoded query string.
+     */
+    public URI uri(String path, Map<String, String> params) {
+        StringBuilder sb = new StringBuilder(baseUrl).append(path);
+        if (params != null && !params.isEmpty()) {
+            char sep = '?';
+            for (var e : params.entrySet()) {
+                sb.append(sep).append(enc(e.getKey())).append('=').append(enc(e.getValue()));
+                sep = '&';
+            }
+        }
+        return URI.create(sb.toString());
+    }
+
+    /**
+     * A request builder with the request timeout already set.
+     */
+    public HttpRequest.Builder request(URI uri) {
+        return HttpRequest.newBuilder(uri).timeout(requestTimeout);
+    }
+
+    /**
+     * Sends {@code request}. If it is safe to repeat (a GET, or anything carrying an
+     * Idempotency-Key), connection failures, timeouts and 429/502/503/504 are retried with
+     * jittered exponential backoff, honouring Retry-After. Cancelling the returned future aborts
+     * the current attempt.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        boolean repeatable = request.method().equals("GET") || request.headers().firstValue(IDEMPOTENCY_KEY).isPresent();
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<?>> current = new AtomicReference<>();
+        result.whenComplete((r, e) -> {
+            CompletableFuture<?> attempt = current.get();
+            if (result.isCancelled() && attempt != null) attempt.cancel(true);
+        });
+        attempt(request, handler, repeatable ? retries : 0, 0, result, current);
+        return result;
+    }
+
+    /**
+     * GETs {@code uri} and turns the response into a value with {@code parser} on a background
+     * thread. Identical concurrent calls (same URI and headers) share one exchange and one
+     * parsed value, which callers must therefore treat as read-only. Cancelling the returned
+     * future aborts the exchange once every caller sharing it has cancelled, including a body
+     * that is still being downloaded and parsed.
+     */
+    public <T> CompletableFuture<T> get(URI uri, Map<String, String> headers, BodyParser<T> parser) {
+        String key = new TreeMap<>(headers) + " " + uri;
+        @SuppressWarnings("unchecked")
+        Shared<T> shared = (Shared<T>) inFlight.compute(key, (k, s) -> {
+            Shared<?> joined = s != null ? s : start(uri, headers, parser);
+            joined.callers.incrementAndGet();
+            return joined;
+        });
+        // outside compute: a call that already failed would otherwise update the map recursively
+        shared.value.whenComplete((v, e) -> inFlight.remove(key, shared));
+
+        CompletableFuture<T> mine = new CompletableFuture<>();
+        shared.value.whenComplete((v, e) -> {
+            if (e != null) mine.completeExceptionally(unwrap(e));
+            else mine.complete(v);
+        });
+        mine.whenComplete((v, e) -> {
+            if (mine.isCancelled()) leave(key, shared);
+        });
+        return mine;
+    }
+
+    //helpers
+
+    private <T> void attempt(HttpRequest request, HttpResponse.BodyHandler<T> handler, int maxRetries, int n,
+                             CompletableFuture<HttpResponse<T>> result, AtomicReference<CompletableFuture<?>> current) {
+        if (result.isDone()) return;
+        CompletableFuture<HttpResponse<T>> exchange = http.sendAsync(request, handler);
+        current.set(exchange);
+        // cancelled between the check above and publishing this attempt
+        if (result.isCancelled()) exchange.cancel(true);
+
+        exchange.whenComplete((response, failure) -> {
+            Throwable cause = failure == null ? null : unwrap(failure);
+            if (n < maxRetries && !result.isDone() && retryable(response, cause)) {
+                long delay = backoff(n, response);
+                discard(response);
+                CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                        .execute(() -> attempt(request, handler, maxRetries, n + 1, result, current));
+            } else if (cause != null) {
+                result.completeExceptionally(cause);
+            } else if (!result.complete(response)) {
+                discard(response);
+            }
+        });
+    }
+
+    private <T> Shared<T> start(URI uri, Map<String, String> headers, BodyParser<T> parser) {
+        HttpRequest.Builder b = request(uri).GET();
+        headers.forEach(b::header);
+        CompletableFuture<HttpResponse<InputStream>> exchange = send(b.build(), HttpResponse.BodyHandlers.ofInputStream());
+        CompletableFuture<T> value = exchange.thenApplyAsync(response -> {
+            try {
+                return parser.parse(response);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, PARSERS);
+        // the headers may be in and the parser reading: closing the body aborts the download
+        value.whenComplete((v, e) -> {
+            if (value.isCancelled()) exchange.thenAccept(ApiTransport::discard);
+        });
+        return new Shared<>(value, exchange);
+    }
+
+    // the last caller to give up aborts the exchange
+    private void leave(String key, Shared<?> shared) {
+        boolean[] last = {false};
+        inFlight.computeIfPresent(key, (k, s) -> {
+            if (s != shared || s.callers.decrementAndGet() > 0) return s;
+            last[0] = true;
+            return null;
+        });
+        if (last[0]) {
+            shared.exchange.cancel(true);
+            shared.value.cancel(true);
+        }
+    }
+
+    private static boolean retryable(HttpResponse<?> response, Throwable failure) {
+        if (failure != null) return failure instanceof IOException;
+        return RETRY_STATUSES.contains(response.statusCode());
+    }
+
+    // full jitter: anywhere between 0 and the exponential cap, but never sooner than Retry-After
+    private static long backoff(int attempt, HttpResponse<?> response) {
+        long cap = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << attempt);
+        long delay = ThreadLocalRandom.current().nextLong(cap + 1);
+        if (response != null) {
+            long retryAfter = response.headers().firstValue("Retry-After").map(ApiTransport::seconds).orElse(0L);
+            delay = Math.max(delay, TimeUnit.SECONDS.toMillis(retryAfter));
+        }
+        return delay;
+    }
+
+    private static long seconds(String retryAfter) {
+        try {
+            return Long.parseLong(retryAfter.trim());
+        } catch (NumberFormatException e) {
+            return 0; // HTTP-date form; the jittered delay applies
+        }
+    }
+
+    private static void discard(HttpResponse<?> response) {
+        if (response != null && response.body() instanceof AutoCloseable body) {
+            try {
+                body.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        return t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+    }
+
+    private static String enc(String s) {
+        return URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a whole response; must close the body.
+     */
+    public interface BodyParser<T> {
+        T parse(HttpResponse<InputStream> response) throws Exception;
+    }
+
+    private static final class Shared<T> {
+        final CompletableFuture<T> value;
+        final CompletableFuture<?> exchange;
+        final AtomicInteger callers = new AtomicInteger();
+
+        Shared(CompletableFuture<T> value, CompletableFuture<?> exchange) {
+            this.value = value;
+            this.exchange = exchange;
+        }
+    }
+}
@@ -1,33 +1,65 @@
-import java.net.URI;
-import java.net.http.HttpClient;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Gate calls. Each call carries its own idempotency key, so the transport may retry it safely.
+ */
 public class BackendClient {
-    private final HttpClient client = HttpClient.newHttpClient();
-    private final String baseUrl = "http://localhost:8080";
 
-    public String createEntryTicket(Car car) throws Exception {
-        String json = """
-            {"plate":"%s","type":"%s"}
-            """.formatted(escape(car.getPlate()), escape(car.getType()));
+    private final ApiTransport transport;
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    public BackendClient() {
+        this(ApiTransport.shared());
+    }
+
+    public BackendClient(ApiTransport transport) {
+        this.transport = transport;
+    }
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(baseUrl + "/tickets/entry"))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(json))
-                .build();
+    public CompletableFuture<ParkingHistoryUI.TicketDTO> createEntryTicket(Car car) {
+        return post("/api/tickets/entry", new EntryRequest(car.getPlate(), car.getType()));
+    }
 
-        HttpResponse<String> response =
-                client.send(request, HttpResponse.BodyHandlers.ofString());
+    public CompletableFuture<ParkingHistoryUI.TicketDTO> closeTicket(String plate) {
+        return post("/api/tickets/exit", Map.of("plate", plate));
+    }
 
-        if (response.statusCode() >= 400) {
-            throw new RuntimeException("Backend error: " + response.statusCode() + " -> " + response.body());
+    private CompletableFuture<ParkingHistoryUI.TicketDTO> post(String path, Object body) {
+        HttpRequest request;
+        try {
+            request = transport.request(transport.uri(path, null))
+                    .header("Content-Type", "application/json")
+                    .header(ApiTransport.IDEMPOTENCY_KEY, UUID.randomUUID().toString())
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
         }
-        return response.body();
+
+        return transport.send(request, HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+            if (response.statusCode() >= 400) {
+                throw new RuntimeException("Backend error: " + response.statusCode() + " -> "
+                        + new String(response.body(), StandardCharsets.UTF_8));
+            }
+            try {
+                return mapper.readValue(response.body(), ParkingHistoryUI.TicketDTO.class);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
-    private static String escape(String s) {
-        return s == null ? "" : s.replace("\"", "\\\"");
+    record EntryRequest(String plate, String vehicleType) {
     }
 }
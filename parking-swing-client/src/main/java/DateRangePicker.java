@@ -0,0 +1,102 @@
+import javax.swing.*;
+import java.awt.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Preset or custom date range for one time column ("entry" or "exit"). Presets run up to now;
+ * a custom range covers whole days, both ends inclusive.
+ */
+public class DateRangePicker extends JPanel {
+
+    private static final String ANY = "Any time";
+    private static final String CUSTOM = "Custom…";
+    private static final LocalTime END_OF_DAY = LocalTime.of(23, 59, 59, 999_999_000);
+
+    private final String param;
+    private final JComboBox<String> preset = new JComboBox<>(new String[]{
+            ANY, "Today", "Last 7 days", "Last 30 days", "Last 90 days", CUSTOM});
+    private final JSpinner from = dateSpinner();
+    private final JSpinner to = dateSpinner();
+
+    /**
+     * @param param request parameter prefix, e.g. {@code "entry"} for entryFrom/entryTo
+     */
+    public DateRangePicker(String param) {
+        super(new FlowLayout(FlowLayout.LEFT, 6, 0));
+        this.param = param;
+        setOpaque(false);
+
+        add(preset);
+        add(from);
+        add(new JLabel("–"));
+        add(to);
+        showCustom(false);
+
+        preset.addActionListener(e -> showCustom(CUSTOM.equals(preset.getSelectedItem())));
+    }
+
+    /**
+     * Runs {@code onChange} whenever the selected range changes.
+     */
+    public void onChange(Runnable onChange) {
+        preset.addActionListener(e -> onChange.run());
+        from.addChangeListener(e -> onChange.run());
+        to.addChangeListener(e -> onChange.run());
+    }
+
+    public void reset() {
+        preset.setSelectedItem(ANY);
+    }
+
+    /**
+     * Adds {@code <param>From}/{@code <param>To} as ISO date-times for the selected range.
+     */
+    public void putParams(Map<String, String> params) {
+        LocalDate today = LocalDate.now();
+        String selected = (String) preset.getSelectedItem();
+        if (selected == null || ANY.equals(selected)) return;
+
+        switch (selected) {
+            case "Today" -> params.put(param + "From", today.atStartOfDay().toString());
+            case "Last 7 days" -> params.put(param + "From", today.minusDays(6).atStartOfDay().toString());
+            case "Last 30 days" -> params.put(param + "From", today.minusDays(29).atStartOfDay().toString());
+            case "Last 90 days" -> params.put(param + "From", today.minusDays(89).atStartOfDay().toString());
+            default -> {
+                LocalDate start = localDate(from);
+                LocalDate end = localDate(to);
+                if (end.isBefore(start)) {
+                    LocalDate swap = start;
+                    start = end;
+                    end = swap;
+                }
+                params.put(param + "From", start.atStartOfDay().toString());
+                // last microsecond of the day; DATETIME(6) would round nanoseconds up to midnight
+                params.put(param + "To", end.atTime(END_OF_DAY).toString());
+            }
+        }
+    }
+
+    private void showCustom(boolean custom) {
+        for (Component c : getComponents()) {
+            if (c != preset) c.setVisible(custom);
+        }
+        revalidate();
+    }
+
+    //helpers
+
+    private static JSpinner dateSpinner() {
+        JSpinner s = new JSpinner(new SpinnerDateModel());
+        s.setEditor(new JSpinner.DateEditor(s, "yyyy-MM-dd"));
+        return s;
+    }
+
+    private static LocalDate localDate(JSpinner spinner) {
+        Date d = (Date) spinner.getValue();
+        return d.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+}
@@ -1,36 +1,34 @@
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.formdev.flatlaf.FlatLightLaf;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.net.URI;
-import java.net.URLEncoder;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 public class ParkingHistoryUI extends JFrame {
 
-    private static final String API_BASE = "http://localhost:8080/api/tickets";
+    private static final String API_BASE = "/api/tickets";
+    private static final int PAGE_SIZE = 500;
+    private static final int DEBOUNCE_MS = 250;
 
-    private final HttpClient http = HttpClient.newHttpClient();
+    private final ApiTransport transport = ApiTransport.shared();
     private final ObjectMapper mapper = new ObjectMapper();
 
-    private final DefaultTableModel model = new DefaultTableModel(
-            new Object[]{"ID", "Plate", "Type", "Status", "Entry Time", "Exit Time", "Amount"},
-            0
-    ) {
-        @Override public boolean isCellEditable(int r, int c) { return false; }
-    };
+    private final RequestCoordinator requests = new RequestCoordinator(DEBOUNCE_MS);
+    private final TicketTableModel model = new TicketTableModel(requests);
+    private TicketEventStream liveEvents;
+
+    // last known tickets, shown instantly and while offline; null if the cache file cannot be opened
+    private final TicketCache cache = openCache();
+    private final TicketSync sync = cache == null ? null : new TicketSync(transport, cache);
 
     // Controls
     private final JTextField plateField = new JTextField(18);
@@ -45,6 +43,9 @@ public class ParkingHistoryUI extends JFrame {
             new SortOption("Plate (Z → A)", "plate,desc")
     });
 
+    private final DateRangePicker enteredPicker = new DateRangePicker("entry");
+    private final DateRangePicker exitedPicker = new DateRangePicker("exit");
+
     private final JLabel statusText = new JLabel("Ready");
     private final JProgressBar progress = new JProgressBar();
 
@@ -81,7 +82,7 @@ public class ParkingHistoryUI extends JFrame {
         JLabel title = new JLabel("History");
         title.setFont(title.getFont().deriveFont(Font.BOLD, 22f));
 
-        JLabel subtitle = new JLabel("Search by plate • Filter by status/type • Sort results");
+        JLabel subtitle = new JLabel("Search by plate • Filter by status/type/date • Sort results");
         subtitle.setForeground(new Color(90, 90, 90));
 
         JPanel titleBlock = new JPanel();
@@ -118,19 +119,36 @@ public class ParkingHistoryUI extends JFrame {
         filters.add(clear);
         filters.add(refresh);
 
+        JPanel ranges = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
+        ranges.setOpaque(false);
+        ranges.add(labelMuted("Entered"));
+        ranges.add(enteredPicker);
+        ranges.add(labelMuted("Exited"));
+        ranges.add(exitedPicker);
+
+        JPanel controls = new JPanel();
+        controls.setLayout(new BoxLayout(controls, BoxLayout.Y_AXIS));
+        controls.setOpaque(false);
+        controls.add(filters);
+        controls.add(Box.createVerticalStrut(8));
+        controls.add(ranges);
+
 
-        apply.addActionListener(e -> refresh());
-        refresh.addActionListener(e -> refresh());
+        apply.addActionListener(e -> requests.now(this::refresh));
+        refresh.addActionListener(e -> requests.now(this::refresh));
         clear.addActionListener(e -> {
+            // the combo resets only schedule debounced refreshes; now() replaces them with one
             plateField.setText("");
             statusBox.setSelectedItem("CLOSED");
             typeBox.setSelectedItem("ALL");
             sortBox.setSelectedIndex(0);
-            refresh();
+            enteredPicker.reset();
+            exitedPicker.reset();
+            requests.now(this::refresh);
         });
 
         header.add(titleBlock, BorderLayout.WEST);
-        header.add(filters, BorderLayout.EAST);
+        header.add(controls, BorderLayout.EAST);
 
 
         JPanel divider = new JPanel();
@@ -180,10 +198,19 @@ public class ParkingHistoryUI extends JFrame {
     }
 
     private void wireActions() {
-        plateField.addActionListener(e -> refresh());
-        statusBox.addActionListener(e -> refresh());
-        typeBox.addActionListener(e -> refresh());
-        sortBox.addActionListener(e -> refresh());
+        plateField.addActionListener(e -> requests.now(this::refresh));
+        statusBox.addActionListener(e -> requests.debounce(this::refresh));
+        typeBox.addActionListener(e -> requests.debounce(this::refresh));
+        sortBox.addActionListener(e -> requests.debounce(this::refresh));
+        enteredPicker.onChange(() -> requests.debounce(this::refresh));
+        exitedPicker.onChange(() -> requests.debounce(this::refresh));
+
+        // type-ahead: search once typing pauses
+        plateField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { requests.debounce(ParkingHistoryUI.this::refresh); }
+            @Override public void removeUpdate(DocumentEvent e) { requests.debounce(ParkingHistoryUI.this::refresh); }
+            @Override public void changedUpdate(DocumentEvent e) { }
+        });
     }
 
     private void refresh() {
@@ -203,49 +230,74 @@ public class ParkingHistoryUI extends JFrame {
             params.put("sort", sort.apiValue);
         }
 
-        fetchTickets(params);
+        enteredPicker.putParams(params);
+        exitedPicker.putParams(params);
+
+        // the first page is requested once the event stream is open, so no change falls in between
+        follow(params);
+    }
+
+    // live OPENED/CLOSED events for the current filters, applied as row deltas
+    private void follow(Map<String, String> params) {
+        if (liveEvents != null) liveEvents.close();
+
+        Map<String, String> filters = new LinkedHashMap<>(params);
+        filters.remove("sort");
+        String status = filters.get("status");
+        liveEvents = new TicketEventStream(transport.http(), mapper, transport.uri(API_BASE + "/events", filters),
+                event -> {
+                    TicketDTO t = event.toTicket();
+                    if (sync != null) sync.store(t);
+                    model.apply(t, status);
+                },
+                () -> fetchTickets(params),
+                // events may have been missed while disconnected
+                () -> {
+                    if (sync != null) sync.syncSoon();
+                    fetchTickets(params);
+                });
     }
 
-    private void fetchTickets(Map<String, String> params) {
-        String url = buildUrl(API_BASE, params);
+    private void fetchTickets(Map<String, String> filters) {
+        Map<String, String> params = new LinkedHashMap<>(filters);
+        params.put("size", String.valueOf(PAGE_SIZE));
         setBusy(true, "Loading…");
 
-        new SwingWorker<List<TicketDTO>, Void>() {
-            @Override
-            protected List<TicketDTO> doInBackground() throws Exception {
-                HttpRequest req = HttpRequest.newBuilder()
-                        .uri(URI.create(url))
-                        .GET()
-                        .build();
-
-                HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
-                if (resp.statusCode() >= 400) {
-                    throw new RuntimeException("HTTP " + resp.statusCode() + "\n" + resp.body());
-                }
-                return mapper.readValue(resp.body(), new TypeReference<List<TicketDTO>>() {});
+        // cached rows first, scanned off the EDT; the first page from the backend replaces them
+        CompletableFuture<TicketRows> cachedRows = cache == null ? null
+                : CompletableFuture.supplyAsync(() -> cache.query(params, PAGE_SIZE));
+
+        // pages are fetched as the table scrolls; the cursor comes from the previous page.
+        // A reload racing a scroll-triggered fetch of the same page shares its request
+        model.reset(cursor -> {
+            Map<String, String> pageParams = new LinkedHashMap<>(params);
+            if (cursor != null) pageParams.put("cursor", cursor);
+            return transport.get(transport.uri(API_BASE + "/page", pageParams),
+                    Map.of("Accept", TicketRows.ACCEPT, "Accept-Encoding", "gzip"), resp -> {
+                        TicketRows rows = TicketRows.read(resp);
+                        if (cache != null) cache.upsert(rows);
+                        return rows;
+                    });
+        }, (m, ex) -> {
+            if (ex != null && m.isShowingCached()) {
+                setBusy(false, "Offline: showing " + m.getRowCount() + " cached ticket(s)");
+                return;
             }
-
-            @Override
-            protected void done() {
-                try {
-                    List<TicketDTO> list = get();
-                    fillTable(list);
-                    setBusy(false, "Loaded " + list.size() + " ticket(s).");
-                } catch (Exception ex) {
-                    setBusy(false, "Error");
-                    JOptionPane.showMessageDialog(ParkingHistoryUI.this,
-                            ex.getMessage(), "API Error", JOptionPane.ERROR_MESSAGE);
-                }
+            if (ex != null) {
+                setBusy(false, "Error");
+                JOptionPane.showMessageDialog(ParkingHistoryUI.this,
+                        ex.getMessage(), "API Error", JOptionPane.ERROR_MESSAGE);
+                return;
             }
-        }.execute();
+            setBusy(false, "Loaded " + m.getRowCount() + " ticket(s)" + (m.hasMore() ? ", scroll for more." : "."));
+        }, cachedRows, params.get("sort"));
     }
 
-    private void fillTable(List<TicketDTO> list) {
-        model.setRowCount(0);
-        for (TicketDTO t : list) {
-            model.addRow(new Object[]{
-                    t.id, t.plate, t.vehicleType, t.status, t.entryTime, t.exitTime, t.amount
-            });
+    private static TicketCache openCache() {
+        try {
+            return TicketCache.open(TicketCache.defaultFile());
+        } catch (IOException e) {
+            return null;
         }
     }
 
@@ -266,23 +318,6 @@ public class ParkingHistoryUI extends JFrame {
         return l;
     }
 
-    private static String buildUrl(String base, Map<String, String> params) {
-        if (params == null || params.isEmpty()) return base;
-
-        StringBuilder sb = new StringBuilder(base).append("?");
-        boolean first = true;
-        for (var e : params.entrySet()) {
-            if (!first) sb.append("&");
-            first = false;
-            sb.append(enc(e.getKey())).append("=").append(enc(e.getValue()));
-        }
-        return sb.toString();
-    }
-
-    private static String enc(String s) {
-        return URLEncoder.encode(s, StandardCharsets.UTF_8);
-    }
-
     private static class SortOption {
         final String label;
         final String apiValue;
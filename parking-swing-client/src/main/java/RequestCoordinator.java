@@ -0,0 +1,137 @@
+import javax.swing.*;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Keeps one screen's backend traffic in order: input is debounced, at most one request is in
+ * flight, and starting a new one (or calling {@link #cancel()}) aborts the previous exchange.
+ * Results are delivered on the EDT, and only if no newer request was started meanwhile.
+ *
+ * All methods must be called on the EDT.
+ */
+public class RequestCoordinator {
+
+    // parsers block on streamed bodies; keep them off HttpClient's own threads
+    private static final ExecutorService PARSERS = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Timer debounce;
+    private Runnable debounced;
+
+    private CompletableFuture<?> inFlight;
+    private int generation;
+
+    public RequestCoordinator(int debounceMillis) {
+        debounce = new Timer(debounceMillis, e -> {
+            Runnable action = debounced;
+            debounced = null;
+            if (action != null) action.run();
+        });
+        debounce.setRepeats(false);
+    }
+
+    /**
+     * Runs {@code action} once input has been quiet for the debounce delay; a later call replaces it.
+     */
+    public void debounce(Runnable action) {
+        debounced = action;
+        debounce.restart();
+    }
+
+    /**
+     * Runs {@code action} right away, dropping any debounced action.
+     */
+    public void now(Runnable action) {
+        debounce.stop();
+        debounced = null;
+        action.run();
+    }
+
+    /**
+     * Starts {@code call} after cancelling whatever was still in flight, then converts its result
+     * with {@code parse} on a background thread, which may block reading a streamed body; a
+     * cancel closes that body, so a superseded download stops. {@code onSuccess} or
+     * {@code onError} runs on the EDT unless another request was submitted or cancelled since.
+     *
+     * <p>Pass a future whose cancellation aborts the exchange, such as one from
+     * {@link ApiTransport}, rather than a derived stage.
+     */
+    public <R, T> void submit(Supplier<CompletableFuture<R>> call, ResponseParser<R, T> parse,
+                              Consumer<T> onSuccess, Consumer<Exception> onError) {
+        cancel();
+        int gen = generation;
+        CompletableFuture<R> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            onError.accept(e);
+            return;
+        }
+        inFlight = future;
+
+        future.whenCompleteAsync((response, failure) -> {
+            T result = null;
+            Exception error = null;
+            if (failure != null) {
+                Throwable cause = unwrap(failure);
+                if (cause instanceof CancellationException) return;
+                error = cause instanceof Exception ex ? ex : new RuntimeException(cause);
+            } else {
+                try {
+                    result = parse.parse(response);
+                } catch (Exception ex) {
+                    error = ex;
+                }
+            }
+
+            T delivered = result;
+            Exception failed = error;
+            SwingUtilities.invokeLater(() -> {
+                if (gen != generation) return; // superseded
+                inFlight = null;
+                if (failed == null) onSuccess.accept(delivered);
+                else onError.accept(failed);
+            });
+        }, PARSERS);
+    }
+
+    /**
+     * Aborts the in-flight request, if any; its callbacks will not run.
+     */
+    public void cancel() {
+        generation++;
+        if (inFlight != null) {
+            // ApiTransport futures abort the exchange when cancelled
+            inFlight.cancel(true);
+            // already answered: the body may be streaming into the parser right now
+            if (inFlight.isDone() && !inFlight.isCompletedExceptionally()) close(inFlight.join());
+            inFlight = null;
+        }
+    }
+
+    public boolean isBusy() {
+        return inFlight != null;
+    }
+
+    public interface ResponseParser<R, T> {
+        T parse(R response) throws Exception;
+    }
+
+    private static void close(Object response) {
+        if (response instanceof HttpResponse<?> r && r.body() instanceof AutoCloseable body) {
+            try {
+                body.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        return t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+    }
+}
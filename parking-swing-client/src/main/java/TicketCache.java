@@ -0,0 +1,253 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Every ticket the client has seen, in a memory-mapped file of fixed-size records, so History
+ * can show the last known state at startup and while the backend is unreachable. Kept current
+ * by {@link TicketSync} from the backend's changes feed, and by pages and live events as they
+ * arrive.
+ *
+ * <p>Layout: a 512-byte header (magic, format, record count, sync token) followed by 64-byte
+ * records: id, entry and exit time (epoch seconds), amount (cents), type, status and up to 29
+ * bytes of plate. A ticket's record is overwritten in place when it changes; the file only grows.
+ * The file is locked while open, so a second client cannot write over it.
+ *
+ * Thread-safe.
+ */
+public class TicketCache implements AutoCloseable {
+
+    private static final int MAGIC = 0x504B5443; // "PKTC"
+    private static final int FORMAT = 1;
+    private static final int HEADER = 512;
+    private static final int RECORD = 64;
+    private static final int MAX_PLATE = 29;
+    private static final int MAX_TOKEN = HEADER - 14;
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private static final long NONE = TicketRows.NONE;
+    // type/status are stored as an index into these; 0 = unknown
+    private static final String[] TYPES = {null, "CAR", "BIKE", "TRUCK", "OTHER"};
+    private static final String[] STATUSES = {null, "OPEN", "CLOSED"};
+
+    private final FileChannel channel;
+    private MappedByteBuffer map;
+    private int capacity;
+    private int count;
+    private final Map<Long, Integer> slots = new HashMap<>();
+
+    private TicketCache(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long records = (channel.size() - HEADER) / RECORD;
+        remap((int) Math.max(INITIAL_CAPACITY, records));
+        if (map.getInt(0) != MAGIC || map.getInt(4) != FORMAT || map.getInt(8) > capacity) {
+            // new, foreign or from an older client: start over
+            map.putInt(0, MAGIC).putInt(4, FORMAT).putInt(8, 0).putShort(12, (short) 0);
+        }
+        count = map.getInt(8);
+        for (int i = 0; i < count; i++) slots.put(map.getLong(offset(i)), i);
+    }
+
+    /**
+     * Opens (or creates) the cache at {@code file}. Defaults to
+     * {@code ~/.parking-client/tickets.cache}, or {@code -Dparking.cache.file}. Fails if another
+     * client has it open.
+     */
+    public static TicketCache open(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            // released when the channel closes
+            FileLock lock = channel.tryLock();
+            if (lock == null) throw new IOException(file + " is in use by another client");
+            return new TicketCache(channel);
+        } catch (OverlappingFileLockException e) {
+            channel.close();
+            throw new IOException(file + " is in use by another client", e);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static Path defaultFile() {
+        String configured = System.getProperty("parking.cache.file");
+        if (configured != null) return Path.of(configured);
+        return Path.of(System.getProperty("user.home"), ".parking-client", "tickets.cache");
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Token to pass as {@code since} on the next changes call; null before the first sync.
+     */
+    public synchronized String syncToken() {
+        int len = map.getShort(12);
+        if (len <= 0) return null;
+        byte[] token = new byte[len];
+        map.get(14, token);
+        return new String(token, StandardCharsets.US_ASCII);
+    }
+
+    public synchronized void setSyncToken(String token) {
+        byte[] bytes = token == null ? new byte[0] : token.getBytes(StandardCharsets.US_ASCII);
+        if (bytes.length > MAX_TOKEN) throw new IllegalArgumentException("Sync token too long");
+        map.put(14, bytes);
+        map.putShort(12, (short) bytes.length);
+    }
+
+    public synchronized void upsert(TicketRows rows) {
+        for (int i = 0; i < rows.size; i++) {
+            put(rows.ids[i], rows.plates[i], rows.types[i], rows.statuses[i], rows.entryTimes[i], rows.exitTimes[i],
+                    rows.amounts[i]);
+        }
+    }
+
+    public synchronized void upsert(ParkingHistoryUI.TicketDTO t) {
+        if (t.id == null) return;
+        put(t.id, t.plate, t.vehicleType, t.status, TicketRows.epochSeconds(t.entryTime),
+                TicketRows.epochSeconds(t.exitTime), t.amount == null ? NONE : Math.round(t.amount * 100));
+    }
+
+    /**
+     * Writes changes through to disk.
+     */
+    public synchronized void flush() {
+        map.force();
+    }
+
+    /**
+     * Up to {@code limit} cached tickets matching History request parameters (status,
+     * vehicleType, plate, entry/exit ranges, sort), the way the backend would list them.
+     * Scans every record, so call it off the EDT.
+     */
+    public synchronized TicketRows query(Map<String, String> params, int limit) {
+        String status = params.get("status");
+        String type = params.get("vehicleType");
+        String plate = params.containsKey("plate") ? params.get("plate").trim().toUpperCase(Locale.ROOT) : null;
+        long entryFrom = time(params.get("entryFrom"), Long.MIN_VALUE);
+        long entryTo = time(params.get("entryTo"), Long.MAX_VALUE);
+        long exitFrom = time(params.get("exitFrom"), Long.MIN_VALUE);
+        long exitTo = time(params.get("exitTo"), Long.MAX_VALUE);
+
+        int[] matches = new int[count];
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            int off = offset(i);
+            if (status != null && !status.equals(STATUSES[map.get(off + 33)])) continue;
+            if (type != null && !type.equals(TYPES[map.get(off + 32)])) continue;
+            long entry = map.getLong(off + 8);
+            long exit = map.getLong(off + 16);
+            if (entry < entryFrom || entry > entryTo) continue;
+            if ((exitFrom != Long.MIN_VALUE || exitTo != Long.MAX_VALUE) && (exit == NONE || exit < exitFrom || exit > exitTo)) {
+                continue;
+            }
+            if (plate != null && !plate(off).toUpperCase(Locale.ROOT).contains(plate)) continue;
+            matches[n++] = i;
+        }
+
+        Integer[] sorted = new Integer[n];
+        for (int i = 0; i < n; i++) sorted[i] = matches[i];
+        Arrays.sort(sorted, comparator(params.getOrDefault("sort", "exitTime,desc")));
+
+        TicketRows rows = new TicketRows(Math.min(n, limit));
+        for (int i = 0; i < n && i < limit; i++) {
+            int off = offset(sorted[i]);
+            rows.ids[i] = map.getLong(off);
+            rows.entryTimes[i] = map.getLong(off + 8);
+            rows.exitTimes[i] = map.getLong(off + 16);
+            rows.amounts[i] = map.getLong(off + 24);
+            rows.types[i] = TYPES[map.get(off + 32)];
+            rows.statuses[i] = STATUSES[map.get(off + 33)];
+            rows.plates[i] = plate(off);
+            rows.size++;
+        }
+        return rows;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        map.force();
+        channel.close();
+    }
+
+    //helpers
+
+    private void put(long id, String plate, String type, String status, long entry, long exit, long amount) {
+        if (id == NONE) return;
+        Integer slot = slots.get(id);
+        if (slot == null) {
+            if (count == capacity) remap(capacity * 2);
+            slot = count++;
+            slots.put(id, slot);
+        }
+
+        int off = offset(slot);
+        map.putLong(off, id).putLong(off + 8, entry).putLong(off + 16, exit).putLong(off + 24, amount);
+        map.put(off + 32, (byte) indexOf(TYPES, type)).put(off + 33, (byte) indexOf(STATUSES, status));
+        byte[] p = plate == null ? new byte[0] : plate.getBytes(StandardCharsets.UTF_8);
+        int len = Math.min(p.length, MAX_PLATE);
+        map.put(off + 34, (byte) len).put(off + 35, p, 0, len);
+        // the count goes last, so a crash mid-write never exposes a half-written new record
+        map.putInt(8, count);
+    }
+
+    private String plate(int off) {
+        byte[] p = new byte[map.get(off + 34)];
+        map.get(off + 35, p);
+        return new String(p, StandardCharsets.UTF_8);
+    }
+
+    private void remap(int newCapacity) {
+        try {
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) newCapacity * RECORD);
+            capacity = newCapacity;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Comparator<Integer> comparator(String sort) {
+        String[] parts = sort.split(",");
+        boolean desc = parts.length > 1 && parts[1].trim().equalsIgnoreCase("desc");
+        Comparator<Integer> c = switch (parts[0].trim()) {
+            case "entryTime" -> Comparator.comparingLong(i -> map.getLong(offset(i) + 8));
+            case "exitTime" -> Comparator.comparingLong(i -> map.getLong(offset(i) + 16));
+            case "plate" -> Comparator.comparing(i -> plate(offset(i)), String.CASE_INSENSITIVE_ORDER);
+            default -> (a, b) -> 0;
+        };
+        // id breaks ties in the sort direction, as the backend's keyset pages do
+        c = c.thenComparingLong(i -> map.getLong(offset(i)));
+        return desc ? c.reversed() : c;
+    }
+
+    private static int offset(int slot) {
+        return HEADER + slot * RECORD;
+    }
+
+    private static long time(String iso, long unbounded) {
+        return iso == null ? unbounded : TicketRows.epochSeconds(iso);
+    }
+
+    private static int indexOf(String[] values, String value) {
+        for (int i = 1; i < values.length; i++) {
+            if (values[i].equals(value)) return i;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,142 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Follows the backend's Server-Sent Events stream of ticket changes on a background thread and
+ * hands each event to the EDT. {@code onReady} runs (on the EDT) once the first connection attempt
+ * has settled, so a snapshot the caller loads from then on misses no event. Drops are retried with
+ * backoff; since events may have been missed meanwhile, {@code onGap} runs after every reconnect
+ * so the caller can reload. Nothing is delivered once the stream is closed.
+ */
+public class TicketEventStream implements AutoCloseable {
+
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final HttpClient http;
+    private final ObjectMapper mapper;
+    private final URI uri;
+    private final Consumer<TicketEventDTO> onEvent;
+    private final Runnable onReady;
+    private final Runnable onGap;
+    private final Thread reader;
+
+    private volatile boolean closed;
+    private volatile Stream<String> lines;
+
+    public TicketEventStream(HttpClient http, ObjectMapper mapper, URI uri,
+                             Consumer<TicketEventDTO> onEvent, Runnable onReady, Runnable onGap) {
+        this.http = http;
+        this.mapper = mapper;
+        this.uri = uri;
+        this.onEvent = onEvent;
+        this.onReady = onReady;
+        this.onGap = onGap;
+        this.reader = new Thread(this::run, "ticket-events");
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Stream<String> current = lines;
+        if (current != null) current.close();
+        reader.interrupt();
+    }
+
+    private void run() {
+        long backoff = 1000;
+        boolean announced = false;
+        while (!closed) {
+            try {
+                HttpRequest req = HttpRequest.newBuilder(uri).header("Accept", "text/event-stream").GET().build();
+                HttpResponse<Stream<String>> resp = http.send(req, HttpResponse.BodyHandlers.ofLines());
+                if (resp.statusCode() >= 400) {
+                    resp.body().close();
+                    throw new IOException("HTTP " + resp.statusCode());
+                }
+                lines = resp.body();
+                // the backend subscribes before it answers, so from here on no event is missed
+                deliver(announced ? onGap : onReady);
+                announced = true;
+                backoff = 1000;
+                read(resp.body().iterator());
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                if (closed) return;
+                // offline: let the caller load what it can anyway
+                if (!announced) deliver(onReady);
+                announced = true;
+            } finally {
+                Stream<String> current = lines;
+                if (current != null) current.close();
+                lines = null;
+            }
+
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                return;
+            }
+            backoff = Math.min(MAX_BACKOFF_MS, backoff * 2);
+        }
+    }
+
+    // one event per blank-line-terminated block; only data lines matter, comments are heartbeats
+    private void read(Iterator<String> it) throws IOException {
+        StringBuilder data = new StringBuilder();
+        while (!closed && it.hasNext()) {
+            String line = it.next();
+            if (line.isEmpty()) {
+                if (!data.isEmpty()) {
+                    TicketEventDTO event = mapper.readValue(data.toString(), TicketEventDTO.class);
+                    deliver(() -> onEvent.accept(event));
+                    data.setLength(0);
+                }
+            } else if (line.startsWith("data:")) {
+                if (!data.isEmpty()) data.append('\n');
+                data.append(line.substring(line.startsWith("data: ") ? 6 : 5));
+            }
+        }
+    }
+
+    // close() runs on the EDT too, so a callback queued before it never runs after it
+    private void deliver(Runnable callback) {
+        SwingUtilities.invokeLater(() -> {
+            if (!closed) callback.run();
+        });
+    }
+
+    public static class TicketEventDTO {
+        public String type;
+        public Long ticketId;
+        public String plate;
+        public String vehicleType;
+        public String status;
+        public String entryTime;
+        public String exitTime;
+        public Double amount;
+
+        ParkingHistoryUI.TicketDTO toTicket() {
+            ParkingHistoryUI.TicketDTO t = new ParkingHistoryUI.TicketDTO();
+            t.id = ticketId;
+            t.plate = plate;
+            t.vehicleType = vehicleType;
+            t.status = status;
+            t.entryTime = entryTime;
+            t.exitTime = exitTime;
+            t.amount = amount;
+            return t;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * One page of tickets decoded straight into columns. {@link #read} pulls tokens from a
+ * {@link JsonParser} (JSON or Smile) as the body arrives, so neither the raw response nor a
+ * tree or per-row DTOs are ever held in memory.
+ */
+public class TicketRows {
+
+    static final long NONE = Long.MIN_VALUE;
+
+    // binary Smile when the backend offers it; either may come gzipped
+    static final String ACCEPT = "application/x-jackson-smile, application/json;q=0.9";
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final SmileFactory SMILE = new SmileFactory();
+
+    // times are local date-times as epoch seconds, amount is in cents; NONE for null
+    long[] ids;
+    String[] plates;
+    String[] types;
+    String[] statuses;
+    long[] entryTimes;
+    long[] exitTimes;
+    long[] amounts;
+    int size;
+    String nextCursor;
+    // changes feed only: more changes are waiting
+    boolean more;
+
+    TicketRows(int capacity) {
+        ids = new long[capacity];
+        plates = new String[capacity];
+        types = new String[capacity];
+        statuses = new String[capacity];
+        entryTimes = new long[capacity];
+        exitTimes = new long[capacity];
+        amounts = new long[capacity];
+    }
+
+    /**
+     * Reads a page (or changes) response, JSON or Smile, gzipped or not, as the body arrives.
+     * Closes the body.
+     */
+    public static TicketRows read(HttpResponse<InputStream> resp) throws IOException {
+        try (InputStream body = decoded(resp)) {
+            if (resp.statusCode() >= 400) {
+                throw new IOException("HTTP " + resp.statusCode() + "\n"
+                        + new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            String type = resp.headers().firstValue("Content-Type").orElse("");
+            JsonFactory factory = type.startsWith("application/x-jackson-smile") ? SMILE : JSON;
+            try (JsonParser p = factory.createParser(body)) {
+                return read(p);
+            }
+        }
+    }
+
+    /**
+     * Reads a {@code {"items": [...], "nextCursor": ..., "more": ...}} page.
+     */
+    public static TicketRows read(JsonParser p) throws IOException {
+        TicketRows rows = new TicketRows(64);
+        if (p.nextToken() != JsonToken.START_OBJECT) throw new IOException("Expected a ticket page object");
+
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (field) {
+                case "items" -> rows.readItems(p);
+                case "nextCursor" -> rows.nextCursor = value == JsonToken.VALUE_NULL ? null : p.getText();
+                case "more" -> rows.more = value == JsonToken.VALUE_TRUE;
+                default -> p.skipChildren();
+            }
+        }
+        return rows;
+    }
+
+    private void readItems(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) throw new IOException("Expected an items array");
+
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+            grow();
+            int row = size++;
+            ids[row] = NONE;
+            entryTimes[row] = NONE;
+            exitTimes[row] = NONE;
+            amounts[row] = NONE;
+
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                boolean isNull = p.nextToken() == JsonToken.VALUE_NULL;
+                if (isNull) continue;
+                switch (field) {
+                    case "id" -> ids[row] = p.getLongValue();
+                    case "plate" -> plates[row] = p.getText();
+                    case "vehicleType" -> types[row] = p.getText();
+                    case "status" -> statuses[row] = p.getText();
+                    case "entryTime" -> entryTimes[row] = epochSeconds(p.getText());
+                    case "exitTime" -> exitTimes[row] = epochSeconds(p.getText());
+                    case "amount" -> amounts[row] = cents(p.getDecimalValue());
+                    default -> p.skipChildren();
+                }
+            }
+        }
+    }
+
+    private void grow() {
+        if (size < ids.length) return;
+        int cap = ids.length * 2;
+        ids = Arrays.copyOf(ids, cap);
+        plates = Arrays.copyOf(plates, cap);
+        types = Arrays.copyOf(types, cap);
+        statuses = Arrays.copyOf(statuses, cap);
+        entryTimes = Arrays.copyOf(entryTimes, cap);
+        exitTimes = Arrays.copyOf(exitTimes, cap);
+        amounts = Arrays.copyOf(amounts, cap);
+    }
+
+    //helpers
+
+    private static InputStream decoded(HttpResponse<InputStream> resp) throws IOException {
+        boolean gzip = resp.headers().firstValue("Content-Encoding").map("gzip"::equalsIgnoreCase).orElse(false);
+        return gzip ? new GZIPInputStream(resp.body()) : resp.body();
+    }
+
+    static long epochSeconds(String isoTime) {
+        if (isoTime == null || isoTime.isBlank()) return NONE;
+        return LocalDateTime.parse(isoTime).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    static long cents(BigDecimal amount) {
+        return amount == null ? NONE : amount.movePointRight(2).longValue();
+    }
+}
@@ -0,0 +1,87 @@
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pulls {@code /api/tickets/changes} into a {@link TicketCache}: right away, then every
+ * {@code parking.cache.sync-interval} seconds (default 60). Each pass starts from the sync token
+ * stored in the cache, so after the first launch only tickets that changed since the last pass
+ * are transferred. A failed pass is simply tried again on the next tick.
+ */
+public class TicketSync implements AutoCloseable {
+
+    private static final int BATCH = 1000;
+
+    private final ApiTransport transport;
+    private final TicketCache cache;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ticket-sync");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public TicketSync(ApiTransport transport, TicketCache cache) {
+        this.transport = transport;
+        this.cache = cache;
+        long interval = Long.getLong("parking.cache.sync-interval", 60);
+        timer.scheduleWithFixedDelay(this::syncQuietly, 0, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Runs a pass soon, e.g. after the event stream reconnects.
+     */
+    public void syncSoon() {
+        timer.execute(this::syncQuietly);
+    }
+
+    /**
+     * Writes a live change into the cache on the sync thread, so the EDT never waits on the cache
+     * while a query scans it.
+     */
+    public void store(ParkingHistoryUI.TicketDTO t) {
+        try {
+            timer.execute(() -> {
+                try {
+                    cache.upsert(t);
+                } catch (UncheckedIOException e) {
+                    // the next pass brings it in again
+                }
+            });
+        } catch (RejectedExecutionException closed) {
+            // the window is closing
+        }
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (Exception e) {
+            // offline or backend down; the cache stays as it is until the next pass
+        }
+    }
+
+    private void sync() {
+        TicketRows changes;
+        do {
+            Map<String, String> params = new LinkedHashMap<>();
+            String since = cache.syncToken();
+            if (since != null) params.put("since", since);
+            params.put("size", String.valueOf(BATCH));
+
+            changes = transport.get(transport.uri("/api/tickets/changes", params),
+                    Map.of("Accept", TicketRows.ACCEPT, "Accept-Encoding", "gzip"), TicketRows::read).join();
+            cache.upsert(changes);
+            cache.setSyncToken(changes.nextCursor);
+            cache.flush();
+        } while (changes.more && !Thread.currentThread().isInterrupted());
+    }
+}
@@ -0,0 +1,374 @@
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * History rows in column arrays instead of one Object[] per row, filled a page at a time.
+ * When the table asks for a row near the end of what is loaded, the next page is fetched in
+ * the background and appended with a single rowsInserted event. Requests go through a
+ * {@link RequestCoordinator}, so a reset aborts the page still in flight for the old filters.
+ * Live changes that arrive before the first page are held back and applied on top of it.
+ *
+ * All methods must be called on the EDT.
+ */
+public class TicketTableModel extends AbstractTableModel {
+
+    /** Fetches and decodes one page off the EDT; null cursor means the first page. */
+    public interface PageLoader {
+        CompletableFuture<TicketRows> load(String cursor);
+    }
+
+    /** Told about every finished load on the EDT; error is null on success. */
+    public interface LoadListener {
+        void loaded(TicketTableModel model, Exception error);
+    }
+
+    private static final String[] COLUMNS = {"ID", "Plate", "Type", "Status", "Entry Time", "Exit Time", "Amount"};
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final long NONE = TicketRows.NONE;
+    private static final int PREFETCH_ROWS = 100;
+
+    // columns; times are local date-times as epoch seconds, amount is in cents
+    private long[] ids = new long[0];
+    private String[] plates = new String[0];
+    private byte[] types = new byte[0];
+    private byte[] statuses = new byte[0];
+    private long[] entryTimes = new long[0];
+    private long[] exitTimes = new long[0];
+    private long[] amounts = new long[0];
+    private int size;
+
+    // vehicle type / status values seen so far, referenced by the byte columns
+    private final List<String> symbols = new ArrayList<>();
+    // tickets inserted from live events; later pages may contain them again
+    private final Set<Long> liveIds = new HashSet<>();
+    // live changes received before the first page of the current reset arrived
+    private final List<LiveChange> heldBack = new ArrayList<>();
+
+    private final RequestCoordinator requests;
+    private PageLoader loader;
+    private LoadListener listener;
+    private String nextCursor;
+    private boolean hasMore;
+    private boolean loading;
+    // rows shown from the local cache until the first page arrives
+    private boolean cached;
+    private boolean firstPageLoaded;
+    // sort field and direction of the loaded rows, as in the page request
+    private String sortField = "id";
+    private boolean descending = true;
+
+    public TicketTableModel(RequestCoordinator requests) {
+        this.requests = requests;
+    }
+
+    /**
+     * Drops all rows and starts loading from the first page with the given loader.
+     */
+    public void reset(PageLoader loader, LoadListener listener) {
+        reset(loader, listener, null, null);
+    }
+
+    /**
+     * Like {@link #reset(PageLoader, LoadListener)}, but shows {@code cachedRows}, read off the
+     * EDT, until the first page replaces them; rows that come after that page are dropped. If the
+     * page fails, the cached rows stay. {@code sort} is the sort the loader requests (e.g.
+     * {@code exitTime,desc}); live changes are inserted where it puts them.
+     */
+    public void reset(PageLoader loader, LoadListener listener, CompletableFuture<TicketRows> cachedRows,
+                      String sort) {
+        requests.cancel();
+        this.loader = loader;
+        this.listener = listener;
+        this.nextCursor = null;
+        this.hasMore = true;
+        this.loading = false;
+        this.firstPageLoaded = false;
+        heldBack.clear();
+        sortBy(sort);
+        clear();
+        if (cachedRows == null) {
+            loadMore();
+            return;
+        }
+        // the first page is normally requested once the cache was read, so it lands on top
+        cachedRows.whenComplete((rows, ex) -> SwingUtilities.invokeLater(() -> {
+            if (this.loader != loader) return;
+            if (!loading && !firstPageLoaded && rows != null && rows.size > 0) {
+                cached = true;
+                append(rows);
+            }
+            loadMore();
+        }));
+    }
+
+    /**
+     * True while the rows come from the local cache rather than the backend.
+     */
+    public boolean isShowingCached() {
+        return cached;
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Fetches the next page unless one is already on its way or the end was reached.
+     */
+    public void loadMore() {
+        if (loading || !hasMore || loader == null) return;
+        loading = true;
+
+        PageLoader l = loader;
+        String cursor = nextCursor;
+        requests.submit(() -> l.load(cursor), page -> page, page -> {
+            loading = false;
+            if (cached) clear();
+            append(page);
+            nextCursor = page.nextCursor;
+            hasMore = page.nextCursor != null;
+            applyHeldBack();
+            notifyListener(null);
+        }, ex -> {
+            loading = false;
+            hasMore = false;
+            applyHeldBack();
+            notifyListener(ex);
+        });
+    }
+
+    private void notifyListener(Exception error) {
+        if (listener != null) listener.loaded(this, error);
+    }
+
+    /**
+     * Applies a live change: updates or moves the ticket's row, removes it if it no longer has
+     * {@code status} (null = any), or inserts an unknown ticket where the current sort puts it.
+     * A ticket that sorts past the loaded rows is left to the page that will bring it. Until the
+     * first page arrives, changes are held back and applied on top of it.
+     */
+    public void apply(ParkingHistoryUI.TicketDTO t, String status) {
+        if (!firstPageLoaded) {
+            heldBack.add(new LiveChange(t, status));
+            return;
+        }
+
+        int row = indexOf(t.id);
+        // an entry delivered after the page already showed the exit is older than the row
+        if (row >= 0 && "CLOSED".equals(symbols.get(statuses[row])) && !"CLOSED".equals(t.status)) return;
+        boolean keep = status == null || status.equals(t.status);
+
+        if (row >= 0) remove(row);
+        int at = keep ? insertionPoint(t) : -1;
+        if (at >= 0) {
+            ensureCapacity(size + 1);
+            shift(at, 1);
+            size++;
+            set(at, t);
+            if (t.id != null) liveIds.add(t.id);
+        }
+
+        if (row >= 0 && row == at) {
+            fireTableRowsUpdated(row, row);
+            return;
+        }
+        if (row >= 0) fireTableRowsDeleted(row, row);
+        if (at >= 0) fireTableRowsInserted(at, at);
+    }
+
+    private void applyHeldBack() {
+        if (firstPageLoaded) return;
+        firstPageLoaded = true;
+        List<LiveChange> changes = List.copyOf(heldBack);
+        heldBack.clear();
+        changes.forEach(c -> apply(c.ticket(), c.status()));
+    }
+
+    private void clear() {
+        cached = false;
+        int removed = size;
+        size = 0;
+        Arrays.fill(plates, null);
+        liveIds.clear();
+        if (removed > 0) fireTableRowsDeleted(0, removed - 1);
+    }
+
+    private void append(TicketRows page) {
+        if (page.size == 0) return;
+        int first = size;
+        ensureCapacity(size + page.size);
+        for (int i = 0; i < page.size; i++) {
+            if (!liveIds.isEmpty() && liveIds.contains(page.ids[i])) continue;
+            ids[size] = page.ids[i];
+            plates[size] = page.plates[i];
+            types[size] = symbol(page.types[i]);
+            statuses[size] = symbol(page.statuses[i]);
+            entryTimes[size] = page.entryTimes[i];
+            exitTimes[size] = page.exitTimes[i];
+            amounts[size] = page.amounts[i];
+            size++;
+        }
+        if (size > first) fireTableRowsInserted(first, size - 1);
+    }
+
+    private void remove(int row) {
+        shift(row + 1, -1);
+        size--;
+        plates[size] = null;
+    }
+
+    // position for the ticket in the current sort, or -1 if it belongs on a page not loaded yet
+    private int insertionPoint(ParkingHistoryUI.TicketDTO t) {
+        long id = t.id == null ? NONE : t.id;
+        long entry = TicketRows.epochSeconds(t.entryTime);
+        long exit = TicketRows.epochSeconds(t.exitTime);
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareRow(mid, id, t.plate, entry, exit) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo == size && hasMore ? -1 : lo;
+    }
+
+    // where row sorts relative to the given ticket, in display order; ties go by id like the backend's pages
+    private int compareRow(int row, long id, String plate, long entry, long exit) {
+        int c = switch (sortField) {
+            case "exitTime" -> Long.compare(exitTimes[row], exit);
+            case "entryTime" -> Long.compare(entryTimes[row], entry);
+            case "plate" -> Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER).compare(plates[row], plate);
+            default -> 0;
+        };
+        if (c == 0) c = Long.compare(ids[row], id);
+        return descending ? -c : c;
+    }
+
+    private void sortBy(String sort) {
+        sortField = "id";
+        descending = true;
+        if (sort == null || sort.isBlank()) return;
+        String[] parts = sort.split(",");
+        sortField = parts[0].trim();
+        descending = parts.length > 1 && parts[1].trim().equalsIgnoreCase("desc");
+    }
+
+    private void set(int row, ParkingHistoryUI.TicketDTO t) {
+        ids[row] = t.id == null ? NONE : t.id;
+        plates[row] = t.plate;
+        types[row] = symbol(t.vehicleType);
+        statuses[row] = symbol(t.status);
+        entryTimes[row] = TicketRows.epochSeconds(t.entryTime);
+        exitTimes[row] = TicketRows.epochSeconds(t.exitTime);
+        amounts[row] = t.amount == null ? NONE : Math.round(t.amount * 100);
+    }
+
+    private int indexOf(Long id) {
+        if (id == null) return -1;
+        long v = id;
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == v) return i;
+        }
+        return -1;
+    }
+
+    // moves rows [from, size) by delta positions; capacity must already allow it
+    private void shift(int from, int delta) {
+        int n = size - from;
+        System.arraycopy(ids, from, ids, from + delta, n);
+        System.arraycopy(plates, from, plates, from + delta, n);
+        System.arraycopy(types, from, types, from + delta, n);
+        System.arraycopy(statuses, from, statuses, from + delta, n);
+        System.arraycopy(entryTimes, from, entryTimes, from + delta, n);
+        System.arraycopy(exitTimes, from, exitTimes, from + delta, n);
+        System.arraycopy(amounts, from, amounts, from + delta, n);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= ids.length) return;
+        int cap = Math.max(needed, ids.length * 2);
+        ids = Arrays.copyOf(ids, cap);
+        plates = Arrays.copyOf(plates, cap);
+        types = Arrays.copyOf(types, cap);
+        statuses = Arrays.copyOf(statuses, cap);
+        entryTimes = Arrays.copyOf(entryTimes, cap);
+        exitTimes = Arrays.copyOf(exitTimes, cap);
+        amounts = Arrays.copyOf(amounts, cap);
+    }
+
+    //table model
+
+    @Override
+    public int getRowCount() {
+        return size;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return switch (column) {
+            case 0 -> Long.class;
+            case 6 -> Double.class;
+            default -> String.class;
+        };
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        // the table is painting near the end of what we have: fetch ahead
+        if (row >= size - PREFETCH_ROWS) loadMore();
+
+        return switch (column) {
+            case 0 -> ids[row] == NONE ? null : ids[row];
+            case 1 -> plates[row];
+            case 2 -> symbols.get(types[row]);
+            case 3 -> symbols.get(statuses[row]);
+            case 4 -> format(entryTimes[row]);
+            case 5 -> format(exitTimes[row]);
+            case 6 -> amounts[row] == NONE ? null : amounts[row] / 100.0;
+            default -> null;
+        };
+    }
+
+    //helpers
+
+    private byte symbol(String value) {
+        int i = symbols.indexOf(value);
+        if (i < 0) {
+            i = symbols.size();
+            symbols.add(value);
+        }
+        return (byte) i;
+    }
+
+    private record LiveChange(ParkingHistoryUI.TicketDTO ticket, String status) {
+    }
+
+    private static String format(long epochSeconds) {
+        if (epochSeconds == NONE) return null;
+        return TIME.format(LocalDateTime.ofEpochSecond(epochSeconds, 0, ZoneOffset.UTC));
+    }
+}